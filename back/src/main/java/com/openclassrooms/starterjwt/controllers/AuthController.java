@@ -2,18 +2,31 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshTokenRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.AuthMode;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.RevokedTokenRegistry;
+import com.openclassrooms.starterjwt.security.services.LoginAttemptLimiter;
+import com.openclassrooms.starterjwt.security.services.SessionTicketStore;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -30,51 +43,190 @@ public class AuthController {
   private final JwtUtils jwtUtils;
   private final PasswordEncoder passwordEncoder;
   private final UserRepository userRepository;
+  private final UserDetailsCache userDetailsCache;
+  private final LoginAttemptLimiter loginAttemptLimiter;
+  private final RevokedTokenRegistry revokedTokenRegistry;
+  private final UserDetailsServiceImpl userDetailsService;
+  private final SessionTicketStore sessionTicketStore;
+  private final AuthMode authMode;
 
   AuthController(
     AuthenticationManager authenticationManager,
     PasswordEncoder passwordEncoder,
     JwtUtils jwtUtils,
-    UserRepository userRepository
+    UserRepository userRepository,
+    UserDetailsCache userDetailsCache,
+    LoginAttemptLimiter loginAttemptLimiter,
+    RevokedTokenRegistry revokedTokenRegistry,
+    UserDetailsServiceImpl userDetailsService,
+    SessionTicketStore sessionTicketStore,
+    @Value("${oc.app.authMode:database}") AuthMode authMode
   ) {
     this.authenticationManager = authenticationManager;
     this.jwtUtils = jwtUtils;
     this.passwordEncoder = passwordEncoder;
     this.userRepository = userRepository;
+    this.userDetailsCache = userDetailsCache;
+    this.loginAttemptLimiter = loginAttemptLimiter;
+    this.revokedTokenRegistry = revokedTokenRegistry;
+    this.userDetailsService = userDetailsService;
+    this.sessionTicketStore = sessionTicketStore;
+    this.authMode = authMode;
   }
 
   @PostMapping("/login")
   public ResponseEntity<?> authenticateUser(
-    @Valid @RequestBody LoginRequest loginRequest
+    @Valid @RequestBody LoginRequest loginRequest,
+    HttpServletRequest request
   ) {
+    String clientIp = request.getRemoteAddr();
+    // Counted as a failure until the authentication succeeds.
+    long attemptedAt = loginAttemptLimiter.checkAllowed(
+      loginRequest.getEmail(),
+      clientIp
+    );
+
     Authentication authentication = authenticationManager.authenticate(
       new UsernamePasswordAuthenticationToken(
         loginRequest.getEmail(),
         loginRequest.getPassword()
       )
     );
+    loginAttemptLimiter.recordSuccess(
+      loginRequest.getEmail(),
+      clientIp,
+      attemptedAt
+    );
 
     SecurityContextHolder.getContext().setAuthentication(authentication);
-    String jwt = jwtUtils.generateJwtToken(authentication);
     UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
-    boolean isAdmin = false;
-    User user =
-      this.userRepository.findByEmail(userDetails.getUsername()).orElse(null);
-    if (user != null) {
-      isAdmin = user.isAdmin();
+    return ResponseEntity.ok(
+      buildJwtResponse(userDetails, UUID.randomUUID().toString())
+    );
+  }
+
+  @PostMapping("/refresh")
+  public ResponseEntity<?> refreshToken(
+    @Valid @RequestBody RefreshTokenRequest refreshTokenRequest
+  ) {
+    if (authMode == AuthMode.TICKET) {
+      return refreshTicket(refreshTokenRequest.getRefreshToken());
     }
 
-    return ResponseEntity.ok(
-      new JwtResponse(
-        jwt,
-        userDetails.getId(),
-        userDetails.getUsername(),
-        userDetails.getFirstName(),
-        userDetails.getLastName(),
-        isAdmin
+    Claims claims = parseRefreshToken(refreshTokenRequest.getRefreshToken());
+    if (claims == null) {
+      return ResponseEntity
+        .status(HttpStatus.UNAUTHORIZED)
+        .body(new MessageResponse("Error: Invalid refresh token!"));
+    }
+
+    UserDetailsImpl userDetails;
+    try {
+      userDetails =
+        (UserDetailsImpl) userDetailsService.loadUserByUsername(
+          claims.getSubject()
+        );
+    } catch (UsernameNotFoundException e) {
+      return ResponseEntity
+        .status(HttpStatus.UNAUTHORIZED)
+        .body(new MessageResponse("Error: Invalid refresh token!"));
+    }
+
+    // Rotation: a refresh token is only good once. Revoking is the check,
+    // so of two requests racing with the same token only one gets a pair.
+    if (
+      !revokedTokenRegistry.revoke(
+        claims.getId(),
+        claims.getExpiration().getTime()
       )
+    ) {
+      return ResponseEntity
+        .status(HttpStatus.UNAUTHORIZED)
+        .body(new MessageResponse("Error: Invalid refresh token!"));
+    }
+
+    return ResponseEntity.ok(
+      buildJwtResponse(userDetails, jwtUtils.getSessionId(claims))
+    );
+  }
+
+  @PostMapping("/logout")
+  public ResponseEntity<?> logout(
+    @Valid @RequestBody RefreshTokenRequest refreshTokenRequest
+  ) {
+    if (authMode == AuthMode.TICKET) {
+      sessionTicketStore.revoke(refreshTokenRequest.getRefreshToken());
+      return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+    }
+
+    Claims claims = parseRefreshToken(refreshTokenRequest.getRefreshToken());
+    if (claims != null) {
+      // Only the latest refresh token of a session gets past the checks, so
+      // its expiry bounds every token still carrying this session id.
+      revokedTokenRegistry.revoke(
+        jwtUtils.getSessionId(claims),
+        claims.getExpiration().getTime()
+      );
+    }
+
+    return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+  }
+
+  /**
+   * In TICKET mode the ticket doubles as the refresh token, so clients go
+   * through the same refresh and logout calls whatever the mode.
+   */
+  private ResponseEntity<?> refreshTicket(String ticket) {
+    // Removing the ticket is the check, so a ticket is only redeemed once.
+    UserDetailsImpl userDetails = sessionTicketStore.revoke(ticket);
+    if (userDetails == null) {
+      return ResponseEntity
+        .status(HttpStatus.UNAUTHORIZED)
+        .body(new MessageResponse("Error: Invalid refresh token!"));
+    }
+
+    return ResponseEntity.ok(buildJwtResponse(userDetails, null));
+  }
+
+  private Claims parseRefreshToken(String refreshToken) {
+    Claims claims = jwtUtils.parseJwtClaims(refreshToken);
+    if (
+      claims == null ||
+      !jwtUtils.isRefreshToken(claims) ||
+      revokedTokenRegistry.isRevoked(claims.getId()) ||
+      revokedTokenRegistry.isRevoked(jwtUtils.getSessionId(claims))
+    ) {
+      return null;
+    }
+    return claims;
+  }
+
+  private JwtResponse buildJwtResponse(
+    UserDetailsImpl userDetails,
+    String sessionId
+  ) {
+    boolean isAdmin = Boolean.TRUE.equals(userDetails.getAdmin());
+    String token;
+    String refreshToken;
+    if (authMode == AuthMode.TICKET) {
+      token = sessionTicketStore.issue(userDetails);
+      refreshToken = token;
+    } else {
+      token = jwtUtils.generateJwtToken(userDetails, sessionId);
+      refreshToken = jwtUtils.generateRefreshToken(userDetails, sessionId);
+    }
+
+    JwtResponse response = new JwtResponse(
+      token,
+      userDetails.getId(),
+      userDetails.getUsername(),
+      userDetails.getFirstName(),
+      userDetails.getLastName(),
+      isAdmin
     );
+    response.setRefreshToken(refreshToken);
+    return response;
   }
 
   @PostMapping("/register")
@@ -97,6 +249,7 @@ public class AuthController {
     );
 
     userRepository.save(user);
+    userDetailsCache.evict(user.getEmail());
 
     return ResponseEntity.ok(
       new MessageResponse("User registered successfully!")
@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.DataTransferService;
+import com.openclassrooms.starterjwt.services.DataTransferService.Format;
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Admin-only bulk export and import of teachers, sessions and
+ * participations, as NDJSON or CSV. Both directions stream: the export is
+ * written while the rows are read, the import is read from the request body
+ * as it arrives, never bound to an object as a whole.
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/data")
+public class DataTransferController {
+
+  private final DataTransferService dataTransferService;
+
+  public DataTransferController(DataTransferService dataTransferService) {
+    this.dataTransferService = dataTransferService;
+  }
+
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> export(
+    @RequestParam(value = "format", defaultValue = "ndjson") String format
+  ) {
+    if (!isAdmin()) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    Format exportFormat = Format.of(format);
+
+    return ResponseEntity
+      .ok()
+      .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+      .header(
+        HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"yoga-export." +
+        exportFormat.name().toLowerCase() +
+        "\""
+      )
+      .body(out -> this.dataTransferService.export(exportFormat, out));
+  }
+
+  @PostMapping("/import")
+  public ResponseEntity<?> importData(
+    @RequestParam(value = "format", defaultValue = "ndjson") String format,
+    HttpServletRequest request
+  ) throws IOException {
+    if (!isAdmin()) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    return ResponseEntity
+      .ok()
+      .body(
+        this.dataTransferService.importData(
+            Format.of(format),
+            request.getInputStream()
+          )
+      );
+  }
+
+  private static boolean isAdmin() {
+    Object principal = SecurityContextHolder
+      .getContext()
+      .getAuthentication()
+      .getPrincipal();
+
+    return (
+      principal instanceof UserDetailsImpl &&
+      Boolean.TRUE.equals(((UserDetailsImpl) principal).getAdmin())
+    );
+  }
+}
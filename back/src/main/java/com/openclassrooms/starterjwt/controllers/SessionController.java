@@ -1,14 +1,29 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.BulkParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionService.Participation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 import javax.validation.Valid;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -16,15 +31,21 @@ import org.springframework.web.bind.annotation.*;
 @Log4j2
 public class SessionController {
 
+  private static final int DEFAULT_PAGE_SIZE = 20;
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final SessionMapper sessionMapper;
   private final SessionService sessionService;
+  private final ObjectMapper objectMapper;
 
   public SessionController(
     SessionService sessionService,
-    SessionMapper sessionMapper
+    SessionMapper sessionMapper,
+    ObjectMapper objectMapper
   ) {
     this.sessionMapper = sessionMapper;
     this.sessionService = sessionService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping("/{id}")
@@ -42,11 +63,128 @@ public class SessionController {
     }
   }
 
+  /**
+   * The full list, written as a JSON array while the sessions are read from
+   * the database instead of being collected first, so the first bytes go out
+   * at once and memory does not grow with the table.
+   */
+  @GetMapping(params = { "!cursor", "!size" })
+  public ResponseEntity<StreamingResponseBody> findAll() {
+    return ResponseEntity
+      .ok()
+      .contentType(MediaType.APPLICATION_JSON)
+      .body(out -> {
+        // The container owns the response stream: the generator must not close it.
+        try (
+          JsonGenerator generator = this.objectMapper.getFactory()
+            .createGenerator(out)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        ) {
+          generator.writeStartArray();
+          try {
+            this.sessionService.forEachSessionBatch((sessions, participantIds) -> {
+                for (SessionDto sessionDto : this.sessionMapper.toDto(
+                    sessions,
+                    participantIds
+                  )) {
+                  try {
+                    generator.writeObject(sessionDto);
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                }
+              });
+          } catch (UncheckedIOException e) {
+            throw e.getCause();
+          }
+          generator.writeEndArray();
+        }
+      });
+  }
+
+  /**
+   * One page ordered by (date, id) along with the cursor of the next page,
+   * when a cursor or a size is given.
+   */
   @GetMapping
-  public ResponseEntity<?> findAll() {
-    List<Session> sessions = this.sessionService.findAll();
+  public ResponseEntity<?> findPage(
+    @RequestParam(value = "cursor", required = false) String cursor,
+    @RequestParam(value = "size", required = false) Integer size
+  ) {
+    int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return page(
+      this.sessionService.findPage(
+          cursor != null ? SessionCursor.decode(cursor) : null,
+          pageSize + 1
+        ),
+      pageSize
+    );
+  }
+
+  /**
+   * Sessions matching every given filter, paged like findPage. from and to
+   * are days, both included; q keeps the sessions whose name or description
+   * hold all of its words. How a word matches depends on
+   * oc.app.search.fullText: on MySQL's full-text index it must start a
+   * whole word ("vin" finds "vinyasa" but not "ravin"), and words MySQL
+   * does not index, stopwords or those shorter than its minimum token size,
+   * are ignored; without the index, as on H2, it may appear anywhere in the
+   * text ("vin" also finds "ravin").
+   */
+  @GetMapping("/search")
+  public ResponseEntity<?> search(
+    @RequestParam(value = "from", required = false) @DateTimeFormat(
+      iso = DateTimeFormat.ISO.DATE
+    ) LocalDate from,
+    @RequestParam(value = "to", required = false) @DateTimeFormat(
+      iso = DateTimeFormat.ISO.DATE
+    ) LocalDate to,
+    @RequestParam(value = "teacher_id", required = false) Long teacherId,
+    @RequestParam(value = "q", required = false) String keyword,
+    @RequestParam(value = "cursor", required = false) String cursor,
+    @RequestParam(value = "size", required = false) Integer size
+  ) {
+    int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return page(
+      this.sessionService.search(
+          from,
+          to,
+          teacherId,
+          keyword,
+          cursor != null ? SessionCursor.decode(cursor) : null,
+          pageSize + 1
+        ),
+      pageSize
+    );
+  }
+
+  // One extra row tells whether a next page exists, without a count query.
+  private ResponseEntity<?> page(List<Session> sessions, int pageSize) {
+    String nextCursor = null;
+    if (sessions.size() > pageSize) {
+      sessions = sessions.subList(0, pageSize);
+      nextCursor = SessionCursor.after(sessions.get(pageSize - 1)).encode();
+    }
 
-    return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+    return ResponseEntity
+      .ok()
+      .body(
+        new SessionPageDto(
+          this.sessionMapper.toDto(
+              sessions,
+              this.sessionService.findParticipantIds(sessions)
+            ),
+          nextCursor
+        )
+      );
   }
 
   @PostMapping
@@ -78,39 +216,82 @@ public class SessionController {
     }
   }
 
+  /** Changes only the fields present in the body. */
+  @PatchMapping("{id}")
+  public ResponseEntity<?> patch(
+    @PathVariable("id") String id,
+    @Valid @RequestBody SessionPatchDto sessionPatchDto
+  ) {
+    try {
+      Session session =
+        this.sessionService.patch(Long.parseLong(id), sessionPatchDto);
+
+      return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+    } catch (NumberFormatException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
   @DeleteMapping("{id}")
   public ResponseEntity<?> save(@PathVariable("id") String id) {
     try {
-      Session session = this.sessionService.getById(Long.valueOf(id));
-
-      if (session == null) {
+      if (!this.sessionService.delete(Long.valueOf(id))) {
         return ResponseEntity.notFound().build();
       }
 
-      this.sessionService.delete(Long.parseLong(id));
       return ResponseEntity.ok().build();
     } catch (NumberFormatException e) {
       return ResponseEntity.badRequest().build();
     }
   }
 
+  /**
+   * With waitlist=true, a full session puts the user on its waitlist and
+   * answers 202 instead of 400; the seat is booked once one frees up.
+   */
   @PostMapping("{id}/participate/{userId}")
   public ResponseEntity<?> participate(
     @PathVariable("id") String id,
-    @PathVariable("userId") String userId
+    @PathVariable("userId") String userId,
+    @RequestParam(value = "waitlist", defaultValue = "false") boolean waitlist
   ) {
     try {
-      this.sessionService.participate(
-          Long.parseLong(id),
-          Long.parseLong(userId)
-        );
+      Participation participation =
+        this.sessionService.participate(
+            Long.parseLong(id),
+            Long.parseLong(userId),
+            waitlist
+          );
 
+      if (participation == Participation.WAITLISTED) {
+        return ResponseEntity
+          .status(HttpStatus.ACCEPTED)
+          .body(new MessageResponse("Added to the waitlist."));
+      }
       return ResponseEntity.ok().build();
     } catch (NumberFormatException e) {
       return ResponseEntity.badRequest().build();
     }
   }
 
+  /**
+   * Enrols a group of users into one or several sessions in one call. The
+   * body maps each session id to the outcome for each user id.
+   */
+  @PostMapping("participate")
+  public ResponseEntity<?> participateInBulk(
+    @Valid @RequestBody BulkParticipationRequest request
+  ) {
+    return ResponseEntity
+      .ok()
+      .body(
+        this.sessionService.participateInBulk(
+            request.getSessionIds(),
+            request.getUserIds()
+          )
+      );
+  }
+
   @DeleteMapping("{id}/participate/{userId}")
   public ResponseEntity<?> noLongerParticipate(
     @PathVariable("id") String id,
@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import javax.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/session/series")
+public class SessionSeriesController {
+
+  private final SessionSeriesMapper sessionSeriesMapper;
+  private final SessionSeriesService sessionSeriesService;
+
+  public SessionSeriesController(
+    SessionSeriesService sessionSeriesService,
+    SessionSeriesMapper sessionSeriesMapper
+  ) {
+    this.sessionSeriesMapper = sessionSeriesMapper;
+    this.sessionSeriesService = sessionSeriesService;
+  }
+
+  @GetMapping("/{id}")
+  public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    try {
+      SessionSeries series =
+        this.sessionSeriesService.findById(Long.valueOf(id));
+
+      if (series == null) {
+        return ResponseEntity.notFound().build();
+      }
+
+      return ResponseEntity.ok().body(toDto(series));
+    } catch (NumberFormatException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  /** Creates the series together with all of its sessions. */
+  @PostMapping
+  public ResponseEntity<?> create(
+    @Valid @RequestBody SessionSeriesDto sessionSeriesDto
+  ) {
+    SessionSeries series =
+      this.sessionSeriesService.create(
+          this.sessionSeriesMapper.toEntity(sessionSeriesDto)
+        );
+
+    return ResponseEntity.ok().body(toDto(series));
+  }
+
+  /**
+   * Changes name, description, teacher and capacity of the series and of
+   * its upcoming sessions. The recurrence fields of the body are ignored.
+   */
+  @PutMapping("{id}")
+  public ResponseEntity<?> update(
+    @PathVariable("id") String id,
+    @Valid @RequestBody SessionSeriesDto sessionSeriesDto
+  ) {
+    try {
+      SessionSeries series =
+        this.sessionSeriesService.update(
+            Long.parseLong(id),
+            this.sessionSeriesMapper.toEntity(sessionSeriesDto)
+          );
+
+      return ResponseEntity.ok().body(toDto(series));
+    } catch (NumberFormatException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  /** Cancels the upcoming sessions of the series, then the series itself. */
+  @DeleteMapping("{id}")
+  public ResponseEntity<?> delete(@PathVariable("id") String id) {
+    try {
+      if (!this.sessionSeriesService.delete(Long.valueOf(id))) {
+        return ResponseEntity.notFound().build();
+      }
+
+      return ResponseEntity.ok().build();
+    } catch (NumberFormatException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  private SessionSeriesDto toDto(SessionSeries series) {
+    SessionSeriesDto sessionSeriesDto = this.sessionSeriesMapper.toDto(series);
+    sessionSeriesDto.setOccurrences(
+      this.sessionSeriesService.countOccurrences(series.getId())
+    );
+    return sessionSeriesDto;
+  }
+}
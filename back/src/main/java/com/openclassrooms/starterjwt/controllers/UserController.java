@@ -3,7 +3,6 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.services.UserService;
-import java.util.Objects;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -41,22 +40,18 @@ public class UserController {
   @DeleteMapping("{id}")
   public ResponseEntity<?> save(@PathVariable("id") String id) {
     try {
-      User user = this.userService.findById(Long.valueOf(id));
-
-      if (user == null) {
-        return ResponseEntity.notFound().build();
-      }
-
+      Long userId = Long.valueOf(id);
       UserDetails userDetails = (UserDetails) SecurityContextHolder
         .getContext()
         .getAuthentication()
         .getPrincipal();
 
-      if (!Objects.equals(userDetails.getUsername(), user.getEmail())) {
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+      if (!this.userService.delete(userId, userDetails.getUsername())) {
+        return this.userService.existsById(userId)
+          ? ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()
+          : ResponseEntity.notFound().build();
       }
 
-      this.userService.delete(Long.parseLong(id));
       return ResponseEntity.ok().build();
     } catch (NumberFormatException e) {
       return ResponseEntity.badRequest().build();
@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Number of rows of each kind written by a data import. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummary {
+    private long teachers;
+
+    private long sessions;
+
+    private long participations;
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of ids backed by a primitive array: 8 bytes per id instead
+ * of a boxed Long each, and serialized straight from the array.
+ */
+@JsonSerialize(using = LongList.Serializer.class)
+public final class LongList extends AbstractList<Long> implements RandomAccess {
+    private final long[] values;
+
+    private LongList(long[] values) {
+        this.values = values;
+    }
+
+    public static LongList of(long... values) {
+        return new LongList(values.clone());
+    }
+
+    @Override
+    public Long get(int index) {
+        return values[index];
+    }
+
+    public long getLong(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /** Growable buffer reused across lists, copied out at each build. */
+    public static final class Builder {
+        private long[] buffer = new long[16];
+
+        private int size;
+
+        public Builder add(long value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = value;
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public LongList buildAndReset() {
+            LongList list = new LongList(Arrays.copyOf(buffer, size));
+            size = 0;
+            return list;
+        }
+    }
+
+    static final class Serializer extends StdSerializer<LongList> {
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(LongList.class);
+        }
+
+        @Override
+        public void serialize(LongList list, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeArray(list.values, 0, list.values.length);
+        }
+    }
+}
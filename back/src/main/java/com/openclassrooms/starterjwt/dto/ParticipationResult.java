@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.dto;
+
+/** Outcome of enrolling one user into one session through the bulk endpoint. */
+public enum ParticipationResult {
+    BOOKED,
+    ALREADY_PARTICIPATING,
+    SESSION_FULL,
+    SESSION_NOT_FOUND,
+    USER_NOT_FOUND
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in the sessions ordered by (date, id), exchanged with clients as
+ * an opaque URL-safe token. Decoding anything else is a bad request.
+ */
+@Value
+public class SessionCursor {
+    Date date;
+
+    Long id;
+
+    public static SessionCursor after(Session session) {
+        return new SessionCursor(session.getDate(), session.getId());
+    }
+
+    public String encode() {
+        String key = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static SessionCursor decode(String token) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = key.indexOf(':');
+            return new SessionCursor(
+                    new Date(Long.parseLong(key.substring(0, separator))),
+                    Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Bad request: invalid cursor.");
+        }
+    }
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Date;
@@ -33,6 +34,13 @@ public class SessionDto {
 
     private List<Long> users;
 
+    @Positive
+    private Integer capacity;
+
+    private int seatsTaken;
+
+    private Long series_id;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
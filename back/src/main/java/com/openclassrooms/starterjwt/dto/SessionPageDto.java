@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionPageDto {
+    private List<SessionDto> items;
+
+    /** Opaque token for the next page, null on the last page. */
+    private String nextCursor;
+}
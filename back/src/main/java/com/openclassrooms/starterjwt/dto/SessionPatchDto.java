@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Body of PATCH /api/session/{id}. Jackson only calls the setters of the
+ * properties present in the request, so each setter records its field:
+ * a field left out is not changed, a field sent as null is. A field the
+ * session requires may be left out, but not sent null or, for the name,
+ * blank.
+ */
+@Getter
+public class SessionPatchDto {
+    public static final String NAME = "name";
+    public static final String DATE = "date";
+    public static final String TEACHER_ID = "teacher_id";
+    public static final String DESCRIPTION = "description";
+    public static final String USERS = "users";
+    public static final String CAPACITY = "capacity";
+
+    @Getter(AccessLevel.NONE)
+    private final Set<String> presentFields = new HashSet<>();
+
+    @Size(max = 50)
+    private String name;
+
+    private Date date;
+
+    private Long teacher_id;
+
+    @Size(max = 2500)
+    private String description;
+
+    private List<Long> users;
+
+    @Positive
+    private Integer capacity;
+
+    public boolean has(String field) {
+        return presentFields.contains(field);
+    }
+
+    @AssertTrue(message = "must not be blank")
+    boolean isNameValid() {
+        return !has(NAME) || (name != null && !name.trim().isEmpty());
+    }
+
+    @AssertTrue(message = "must not be null")
+    boolean isDateValid() {
+        return !has(DATE) || date != null;
+    }
+
+    @AssertTrue(message = "must not be null")
+    boolean isDescriptionValid() {
+        return !has(DESCRIPTION) || description != null;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        presentFields.add(NAME);
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+        presentFields.add(DATE);
+    }
+
+    public void setTeacher_id(Long teacher_id) {
+        this.teacher_id = teacher_id;
+        presentFields.add(TEACHER_ID);
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+        presentFields.add(DESCRIPTION);
+    }
+
+    public void setUsers(List<Long> users) {
+        this.users = users;
+        presentFields.add(USERS);
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+        presentFields.add(CAPACITY);
+    }
+}
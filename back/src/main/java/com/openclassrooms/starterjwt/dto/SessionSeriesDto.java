@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSeriesDto {
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    private Long teacher_id;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @Positive
+    private Integer capacity;
+
+    @NotNull
+    private Date firstDate;
+
+    @NotNull
+    private LocalDate until;
+
+    @Min(1)
+    @Max(52)
+    private int intervalWeeks = 1;
+
+    private Set<LocalDate> exceptions;
+
+    /** Number of sessions currently linked to the series, past ones included. */
+    private long occurrences;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+
+/**
+ * One line of a data export or import: a teacher, a session or a
+ * participation, told apart by its type. Only the fields of that type are
+ * set; ids are those of the exporting database.
+ */
+@Data
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferRecord {
+    public static final String TEACHER = "teacher";
+    public static final String SESSION = "session";
+    public static final String PARTICIPATION = "participation";
+
+    private String type;
+
+    private Long id;
+
+    private String lastName;
+
+    private String firstName;
+
+    private String name;
+
+    private String description;
+
+    private Instant date;
+
+    private Long teacher_id;
+
+    private Integer capacity;
+
+    private Long session_id;
+
+    private Long user_id;
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class ServiceUnavailableException extends ResponseStatusException {
+
+  private final long retryAfterSeconds;
+
+  public ServiceUnavailableException(long retryAfterSeconds) {
+    super(
+      HttpStatus.SERVICE_UNAVAILABLE,
+      "Service unavailable: the server is overloaded, please retry later."
+    );
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public HttpHeaders getResponseHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    return headers;
+  }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class TooManyRequestsException extends ResponseStatusException {
+
+  private final long retryAfterSeconds;
+
+  public TooManyRequestsException(long retryAfterSeconds) {
+    super(
+      HttpStatus.TOO_MANY_REQUESTS,
+      "Too many requests: too many failed attempts, please retry later."
+    );
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public HttpHeaders getResponseHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    return headers;
+  }
+}
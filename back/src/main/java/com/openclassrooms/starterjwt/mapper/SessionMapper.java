@@ -1,17 +1,27 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -37,25 +47,106 @@ public abstract class SessionMapper
   @Autowired
   UserService userService;
 
+  /**
+   * Resolves the participants of all the given sessions with one query, so
+   * that a user listed in several of them maps to the same instance.
+   */
+  @Override
+  public List<Session> toEntity(List<SessionDto> sessionDtos) {
+    if (sessionDtos == null) {
+      return null;
+    }
+    Set<Long> userIds = new LinkedHashSet<>();
+    for (SessionDto sessionDto : sessionDtos) {
+      if (sessionDto.getUsers() != null) {
+        userIds.addAll(sessionDto.getUsers());
+      }
+    }
+    Map<Long, User> usersById = resolveUsers(userIds);
+
+    List<Session> sessions = new ArrayList<>(sessionDtos.size());
+    for (SessionDto sessionDto : sessionDtos) {
+      sessions.add(toEntity(sessionDto, usersById));
+    }
+    return sessions;
+  }
+
+  @Override
+  public Session toEntity(SessionDto sessionDto) {
+    if (sessionDto == null) {
+      return null;
+    }
+    return toEntity(
+      sessionDto,
+      resolveUsers(
+        sessionDto.getUsers() != null
+          ? new LinkedHashSet<>(sessionDto.getUsers())
+          : Collections.<Long>emptySet()
+      )
+    );
+  }
+
   @Mappings(
     {
-      @Mapping(source = "description", target = "description"),
+      @Mapping(source = "sessionDto.description", target = "description"),
       @Mapping(
         target = "teacher",
-        expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"
+        expression = "java(resolveTeacher(sessionDto.getTeacher_id()))"
       ),
       @Mapping(
         target = "users",
-        expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"
+        expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().distinct().map(usersById::get).collect(Collectors.toList()))"
       ),
+      @Mapping(target = "seatsTaken", ignore = true),
+      @Mapping(target = "seriesId", ignore = true),
     }
   )
-  public abstract Session toEntity(SessionDto sessionDto);
+  abstract Session toEntity(
+    SessionDto sessionDto,
+    @Context Map<Long, User> usersById
+  );
+
+  /** An id matching no teacher is a bad request rather than a null teacher. */
+  Teacher resolveTeacher(Long teacherId) {
+    if (teacherId == null) {
+      return null;
+    }
+    Teacher teacher = this.teacherService.findById(teacherId);
+    if (teacher == null) {
+      throw new BadRequestException("Bad request: unknown teacher id.");
+    }
+    return teacher;
+  }
+
+  /**
+   * Identity map of the requested users, read with a single findAllById.
+   * Ids matching no user are a bad request rather than null participants.
+   */
+  Map<Long, User> resolveUsers(Set<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Long, User> usersById = new HashMap<>();
+    for (User user : this.userService.findAllById(userIds)) {
+      usersById.put(user.getId(), user);
+    }
+    if (usersById.size() < userIds.size()) {
+      List<Long> unknownIds = userIds
+        .stream()
+        .filter(id -> !usersById.containsKey(id))
+        .collect(Collectors.toList());
+      throw new BadRequestException(
+        "Bad request: unknown user ids " + unknownIds + "."
+      );
+    }
+    return usersById;
+  }
 
   @Mappings(
     {
       @Mapping(source = "description", target = "description"),
       @Mapping(source = "session.teacher.id", target = "teacher_id"),
+      @Mapping(source = "seriesId", target = "series_id"),
       @Mapping(
         target = "users",
         expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"
@@ -63,4 +154,34 @@ public abstract class SessionMapper
     }
   )
   public abstract SessionDto toDto(Session session);
+
+  @Named("toDtoWithoutUsers")
+  @Mappings(
+    {
+      @Mapping(source = "description", target = "description"),
+      @Mapping(source = "session.teacher.id", target = "teacher_id"),
+      @Mapping(source = "seriesId", target = "series_id"),
+      @Mapping(target = "users", ignore = true),
+    }
+  )
+  public abstract SessionDto toDtoWithoutUsers(Session session);
+
+  /**
+   * List mapping that takes the participant ids from the given map instead
+   * of the sessions' lazy users, so no participant is loaded per session.
+   */
+  public List<SessionDto> toDto(
+    List<Session> sessions,
+    Map<Long, List<Long>> participantIds
+  ) {
+    List<SessionDto> sessionDtos = new ArrayList<>(sessions.size());
+    for (Session session : sessions) {
+      SessionDto sessionDto = toDtoWithoutUsers(session);
+      sessionDto.setUsers(
+        participantIds.getOrDefault(session.getId(), Collections.emptyList())
+      );
+      sessionDtos.add(sessionDto);
+    }
+    return sessionDtos;
+  }
 }
@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+@Mapper(componentModel = "spring")
+public abstract class SessionSeriesMapper
+  implements EntityMapper<SessionSeriesDto, SessionSeries> {
+
+  @Autowired
+  TeacherService teacherService;
+
+  @Mappings(
+    {
+      @Mapping(
+        target = "teacher",
+        expression = "java(resolveTeacher(sessionSeriesDto.getTeacher_id()))"
+      ),
+    }
+  )
+  public abstract SessionSeries toEntity(SessionSeriesDto sessionSeriesDto);
+
+  /** An id matching no teacher is a bad request rather than a null teacher. */
+  Teacher resolveTeacher(Long teacherId) {
+    if (teacherId == null) {
+      return null;
+    }
+    Teacher teacher = this.teacherService.findById(teacherId);
+    if (teacher == null) {
+      throw new BadRequestException("Bad request: unknown teacher id.");
+    }
+    return teacher;
+  }
+
+  @Mappings(
+    {
+      @Mapping(source = "sessionSeries.teacher.id", target = "teacher_id"),
+      @Mapping(target = "occurrences", ignore = true),
+    }
+  )
+  public abstract SessionSeriesDto toDto(SessionSeries sessionSeries);
+}
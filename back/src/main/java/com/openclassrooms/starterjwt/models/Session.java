@@ -3,6 +3,7 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -10,14 +11,20 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "SESSIONS")
+@Table(name = "SESSIONS", indexes = {
+        @Index(name = "idx_sessions_date_id", columnList = "date, id"),
+        @Index(name = "idx_sessions_series_id_date", columnList = "series_id, date"),
+        @Index(name = "idx_sessions_teacher_id_date_id", columnList = "teacher_id, date, id")
+})
 @EntityListeners(AuditingEntityListener.class)
+@DynamicUpdate
 @Data
 @Accessors(chain = true)
 @EqualsAndHashCode(of = {"id"})
@@ -26,8 +33,14 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    /**
+     * Ids come from ID_SEQUENCES in blocks of 50 (pooled-lo), so new sessions
+     * can be written in JDBC batches, which IDENTITY columns rule out.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sessions_id")
+    @TableGenerator(name = "sessions_id", table = "ID_SEQUENCES", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "SESSIONS", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -41,15 +54,36 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
-    @OneToOne
+    /** Maximum number of participants, or null when the session is not limited. */
+    @Positive
+    private Integer capacity;
+
+    /**
+     * Number of PARTICIPATE rows of the session, kept by the guarded updates
+     * of SessionRepository only, never written from the entity.
+     */
+    @Column(name = "seats_taken", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer default 0")
+    private int seatsTaken;
+
+    /**
+     * Series the session was materialised from, or null for a one-off
+     * session. Written by the series inserts and bulk statements only.
+     */
+    @Column(name = "series_id", updatable = false)
+    private Long seriesId;
+
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @ToString.Exclude
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            uniqueConstraints = @UniqueConstraint(name = "pk_participate", columnNames = {"session_id", "user_id"}) )
     private List<User> users;
 
     @CreatedDate
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * A class held every intervalWeeks weeks from firstDate until the until day,
+ * except on the exception days. Its occurrences are plain SESSIONS rows
+ * pointing back to it through series_id.
+ */
+@Entity
+@Table(name = "SESSION_SERIES")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @Positive
+    private Integer capacity;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    private Teacher teacher;
+
+    /** Date and time of the first occurrence; the others keep its time of day. */
+    @NotNull
+    @Column(name = "first_date", nullable = false)
+    private Date firstDate;
+
+    /** Last day an occurrence may fall on. */
+    @NotNull
+    @Column(name = "until_date", nullable = false)
+    private LocalDate until;
+
+    @Column(name = "interval_weeks", nullable = false)
+    private int intervalWeeks;
+
+    @ElementCollection
+    @ToString.Exclude
+    @CollectionTable(name = "SESSION_SERIES_EXCEPTION", joinColumns = @JoinColumn(name = "series_id"))
+    @Column(name = "exception_date", nullable = false)
+    private Set<LocalDate> exceptions;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -26,7 +26,9 @@ import java.time.LocalDateTime;
 @ToString
 public class User {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+  @TableGenerator(name = "users_id", table = "ID_SEQUENCES", pkColumnName = "sequence_name",
+      valueColumnName = "next_val", pkColumnValue = "USERS", allocationSize = 50)
   private Long id;
 
   @NonNull
@@ -51,6 +53,14 @@ public class User {
   @NonNull
   private boolean admin;
 
+  /**
+   * Version of the user's tokens, bumped by UserRepository.incrementTokenVersion
+   * only, never written from the entity.
+   */
+  @Column(name = "token_version", nullable = false, insertable = false, updatable = false,
+      columnDefinition = "integer default 0")
+  private int tokenVersion;
+
   @CreatedDate
   @Column(name = "created_at", updatable = false)
   private LocalDateTime createdAt;
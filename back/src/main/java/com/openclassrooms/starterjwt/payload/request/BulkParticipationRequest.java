@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.Data;
+
+@Data
+public class BulkParticipationRequest {
+  @NotEmpty
+  @Size(max = 50)
+  private List<@NotNull Long> sessionIds;
+
+  @NotEmpty
+  @Size(max = 500)
+  private List<@NotNull Long> userIds;
+}
@@ -7,6 +7,7 @@ import lombok.Setter;
 @Setter
 public class JwtResponse {
   private String token;
+  private String refreshToken;
   private String type = "Bearer";
   private Long id;
   private String username;
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.dto.TransferRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads of the tables moved by the data export. Each row is
+ * handed to the consumer as the driver fetches it and is not kept
+ * afterwards. The fetch size only applies to this repository's own
+ * JdbcTemplate: on MySQL, oc.app.transferFetchSize is Integer.MIN_VALUE,
+ * which makes Connector/J stream the rows instead of reading the whole
+ * result first. A streamed result holds its connection until it is fully
+ * read, so each read must finish before the next statement runs.
+ */
+@Repository
+public class DataTransferRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataTransferRepository(
+            DataSource dataSource,
+            @Value("${oc.app.transferFetchSize:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public void forEachTeacher(Consumer<TransferRecord> consumer) {
+        jdbcTemplate.query(
+                "SELECT id, last_name, first_name FROM TEACHERS ORDER BY id",
+                (RowCallbackHandler) rs -> consumer.accept(new TransferRecord()
+                        .setType(TransferRecord.TEACHER)
+                        .setId(rs.getLong("id"))
+                        .setLastName(rs.getString("last_name"))
+                        .setFirstName(rs.getString("first_name"))));
+    }
+
+    public void forEachSession(Consumer<TransferRecord> consumer) {
+        jdbcTemplate.query(
+                "SELECT id, name, description, date, teacher_id, capacity FROM SESSIONS ORDER BY id",
+                (RowCallbackHandler) rs -> {
+                    Timestamp date = rs.getTimestamp("date");
+                    consumer.accept(new TransferRecord()
+                            .setType(TransferRecord.SESSION)
+                            .setId(rs.getLong("id"))
+                            .setName(rs.getString("name"))
+                            .setDescription(rs.getString("description"))
+                            .setDate(date != null ? date.toInstant() : null)
+                            .setTeacher_id(rs.getObject("teacher_id", Long.class))
+                            .setCapacity(rs.getObject("capacity", Integer.class)));
+                });
+    }
+
+    public void forEachParticipation(Consumer<TransferRecord> consumer) {
+        jdbcTemplate.query(
+                "SELECT session_id, user_id FROM PARTICIPATE ORDER BY session_id, user_id",
+                (RowCallbackHandler) rs -> consumer.accept(new TransferRecord()
+                        .setType(TransferRecord.PARTICIPATION)
+                        .setSession_id(rs.getLong("session_id"))
+                        .setUser_id(rs.getLong("user_id"))));
+    }
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * One PARTICIPATE row as a pair of ids, for list reads that only need to
+ * know who takes part in which session. Typed as Number since the driver
+ * returns the raw INT columns of the native query.
+ */
+public interface SessionParticipantId {
+    Number getSessionId();
+
+    Number getUserId();
+}
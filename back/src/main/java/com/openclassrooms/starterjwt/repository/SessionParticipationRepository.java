@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/** Set-based PARTICIPATE writes, run over JDBC rather than through the entity. */
+public interface SessionParticipationRepository {
+    /**
+     * Locks the session row until the end of the transaction and returns its
+     * free seats, Integer.MAX_VALUE when the session has no capacity, or null
+     * when it does not exist.
+     */
+    Integer lockFreeSeats(Long sessionId);
+
+    /** Those of the given users who already participate in the session. */
+    Set<Long> findParticipatingUserIds(Long sessionId, Collection<Long> userIds);
+
+    /**
+     * Inserts the PARTICIPATE rows in JDBC batches and takes as many seats.
+     * The caller holds the session lock and has filtered out participants.
+     */
+    void insertParticipations(Long sessionId, List<Long> userIds);
+
+    /**
+     * Makes the given users the exact participants of the session, deleting
+     * and inserting only the rows that differ, and sets seats_taken to match.
+     * The caller holds the session lock. Returns the number of rows deleted.
+     */
+    int replaceParticipants(Long sessionId, Collection<Long> userIds);
+}
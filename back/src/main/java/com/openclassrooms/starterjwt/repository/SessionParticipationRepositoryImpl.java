@@ -0,0 +1,101 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class SessionParticipationRepositoryImpl implements SessionParticipationRepository {
+    static final int BATCH_SIZE = 100;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    SessionParticipationRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Integer lockFreeSeats(Long sessionId) {
+        // Plain JDBC does not trigger Hibernate's auto-flush.
+        entityManager.flush();
+        return jdbcTemplate.query(
+                "SELECT capacity, seats_taken FROM SESSIONS WHERE id = :id FOR UPDATE",
+                new MapSqlParameterSource("id", sessionId),
+                rs -> {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    int capacity = rs.getInt("capacity");
+                    if (rs.wasNull()) {
+                        return Integer.MAX_VALUE;
+                    }
+                    return Math.max(capacity - rs.getInt("seats_taken"), 0);
+                });
+    }
+
+    @Override
+    public Set<Long> findParticipatingUserIds(Long sessionId, Collection<Long> userIds) {
+        Set<Long> participating = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = :sessionId AND user_id IN (:userIds)",
+                new MapSqlParameterSource("sessionId", sessionId).addValue("userIds", userIds),
+                rs -> {
+                    participating.add(rs.getLong(1));
+                });
+        return participating;
+    }
+
+    @Override
+    public void insertParticipations(Long sessionId, List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        batchInsert(sessionId, userIds);
+        jdbcTemplate.update(
+                "UPDATE SESSIONS SET seats_taken = seats_taken + :count WHERE id = :id",
+                new MapSqlParameterSource("count", userIds.size()).addValue("id", sessionId));
+    }
+
+    @Override
+    public int replaceParticipants(Long sessionId, Collection<Long> userIds) {
+        entityManager.flush();
+        int deleted;
+        List<Long> added = new ArrayList<>(userIds);
+        if (userIds.isEmpty()) {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM PARTICIPATE WHERE session_id = :sessionId",
+                    new MapSqlParameterSource("sessionId", sessionId));
+        } else {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id NOT IN (:userIds)",
+                    new MapSqlParameterSource("sessionId", sessionId).addValue("userIds", userIds));
+            added.removeAll(findParticipatingUserIds(sessionId, userIds));
+        }
+        if (!added.isEmpty()) {
+            batchInsert(sessionId, added);
+        }
+        jdbcTemplate.update(
+                "UPDATE SESSIONS SET seats_taken = :count WHERE id = :id",
+                new MapSqlParameterSource("count", userIds.size()).addValue("id", sessionId));
+        return deleted;
+    }
+
+    private void batchInsert(Long sessionId, List<Long> userIds) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)",
+                userIds,
+                BATCH_SIZE,
+                (ps, userId) -> {
+                    ps.setLong(1, sessionId);
+                    ps.setLong(2, userId);
+                });
+    }
+}
@@ -1,9 +1,189 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionParticipationRepository, SessionSearchRepository {
+    /** Detail read: the session and its participants in a single statement. */
+    @EntityGraph(attributePaths = {"users"})
+    Optional<Session> findWithUsersById(Long id);
+
+    /**
+     * Participations of the given sessions read from PARTICIPATE alone,
+     * without joining USERS, grouped by session.
+     */
+    @Query(
+            value = "SELECT session_id AS sessionId, user_id AS userId FROM PARTICIPATE"
+                    + " WHERE session_id IN (:sessionIds) ORDER BY session_id",
+            nativeQuery = true)
+    List<SessionParticipantId> findParticipantIds(@Param("sessionIds") Collection<Long> sessionIds);
+
+    /**
+     * Adds one PARTICIPATE row, only when both the session and the user exist
+     * and the user does not already participate. Returns the number of rows
+     * inserted, 0 or 1.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "INSERT INTO PARTICIPATE (session_id, user_id)"
+                    + " SELECT s.id, u.id FROM SESSIONS s JOIN USERS u ON u.id = :userId"
+                    + " WHERE s.id = :sessionId AND NOT EXISTS"
+                    + " (SELECT 1 FROM PARTICIPATE p WHERE p.session_id = :sessionId AND p.user_id = :userId)",
+            nativeQuery = true)
+    int insertParticipation(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Query(
+            value = "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId",
+            nativeQuery = true)
+    int countParticipation(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /** Removes one PARTICIPATE row. Returns the number of rows deleted, 0 or 1. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId",
+            nativeQuery = true)
+    int deleteParticipation(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Removes every participation of the session in one statement, so that
+     * deleting it does not load its participants first.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :id", nativeQuery = true)
+    int deleteParticipationsBySessionId(@Param("id") Long id);
+
+    /** Deletes the session by id. Returns the number of rows deleted, 0 or 1. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Session s WHERE s.id = :id")
+    int deleteSessionById(@Param("id") Long id);
+
+    /**
+     * Takes one seat of the session if any is left. The row lock taken here
+     * serialises concurrent bookings of the same session, so seats_taken never
+     * goes past capacity. Returns 0 when the session is full or does not exist.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "UPDATE SESSIONS SET seats_taken = seats_taken + 1"
+                    + " WHERE id = :id AND (capacity IS NULL OR seats_taken < capacity)",
+            nativeQuery = true)
+    int reserveSeat(@Param("id") Long id);
+
+    /**
+     * Gives one seat back, locking the session row like reserveSeat does.
+     * Returns 0 only when the session does not exist.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "UPDATE SESSIONS SET seats_taken = GREATEST(seats_taken - 1, 0) WHERE id = :id",
+            nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    /** Resets seats_taken from PARTICIPATE, after the participant list was written as a whole. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "UPDATE SESSIONS SET seats_taken ="
+                    + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = :id) WHERE id = :id",
+            nativeQuery = true)
+    int recountSeats(@Param("id") Long id);
+
+    long countBySeriesId(Long seriesId);
+
+    /** Copies the shared fields of a series onto its occurrences from the given date on. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "UPDATE SESSIONS SET name = :name, description = :description, teacher_id = :teacherId,"
+                    + " capacity = :capacity, updated_at = CURRENT_TIMESTAMP"
+                    + " WHERE series_id = :seriesId AND date >= :from",
+            nativeQuery = true)
+    int updateOccurrencesFrom(
+            @Param("seriesId") Long seriesId,
+            @Param("from") Date from,
+            @Param("name") String name,
+            @Param("description") String description,
+            @Param("teacherId") Long teacherId,
+            @Param("capacity") Integer capacity);
+
+    /**
+     * Locks the occurrences from the given date on whose capacity is below
+     * the given one, and returns their ids. Integer.MAX_VALUE stands for no
+     * capacity, as in lockFreeSeats.
+     */
+    @Query(
+            value = "SELECT id FROM SESSIONS WHERE series_id = :seriesId AND date >= :from"
+                    + " AND capacity IS NOT NULL AND capacity < :capacity FOR UPDATE",
+            nativeQuery = true)
+    List<Number> lockOccurrencesBelowCapacityFrom(
+            @Param("seriesId") Long seriesId,
+            @Param("from") Date from,
+            @Param("capacity") int capacity);
+
+    @Query(
+            value = "SELECT COUNT(*) FROM SESSIONS WHERE series_id = :seriesId AND date >= :from"
+                    + " AND capacity IS NOT NULL AND seats_taken > capacity",
+            nativeQuery = true)
+    int countOverbookedOccurrencesFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "DELETE FROM PARTICIPATE WHERE session_id IN"
+                    + " (SELECT s.id FROM SESSIONS s WHERE s.series_id = :seriesId AND s.date >= :from)",
+            nativeQuery = true)
+    int deleteOccurrenceParticipationsFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM SESSIONS WHERE series_id = :seriesId AND date >= :from", nativeQuery = true)
+    int deleteOccurrencesFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    /** Turns the remaining occurrences of a series into one-off sessions. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE SESSIONS SET series_id = NULL WHERE series_id = :seriesId", nativeQuery = true)
+    int detachOccurrences(@Param("seriesId") Long seriesId);
+
+    List<Session> findAllByOrderByDateAscIdAsc(Pageable pageable);
+
+    int SCAN_PAGE_SIZE = 100;
+
+    /**
+     * Keyset page in id order: the sessions with an id above the given one,
+     * read through the primary key and not tracked for dirty checking. Each
+     * page is a query of its own, so no driver cursor or streaming mode is
+     * needed to go through the whole table.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    List<Session> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Keyset page: the sessions strictly after (date, id) in (date, id)
+     * order, read through the matching index whatever the offset.
+     */
+    @Query("SELECT s FROM Session s WHERE s.date > :date OR (s.date = :date AND s.id > :id) ORDER BY s.date, s.id")
+    List<Session> findPageAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
 }
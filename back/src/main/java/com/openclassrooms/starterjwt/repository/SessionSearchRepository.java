@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.util.Date;
+import java.util.List;
+
+/** Session search with optional filters, built as native SQL so that it can use a full-text index. */
+public interface SessionSearchRepository {
+    /**
+     * Up to limit sessions dated in [from, to), given by the teacher and
+     * matching every word of the keyword, in (date, id) order and strictly
+     * after (afterDate, afterId) when those are set. Null filters are left
+     * out of the statement. A keyword word matches the start of a whole
+     * word through the full-text index, and any substring through LIKE.
+     */
+    List<Session> search(Date from, Date to, Long teacherId, String keyword,
+                         Date afterDate, Long afterId, int limit);
+}
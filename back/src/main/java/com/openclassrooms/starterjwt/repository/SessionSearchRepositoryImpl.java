@@ -0,0 +1,101 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+class SessionSearchRepositoryImpl implements SessionSearchRepository {
+    static final int MAX_TERMS = 5;
+
+    private final EntityManager entityManager;
+
+    private final boolean fullText;
+
+    /**
+     * With fullText, keywords go through MATCH ... AGAINST on the FULLTEXT
+     * index of MySQL, each word as a required prefix. Without it, as on H2,
+     * each word must appear in the name or the description, through LIKE.
+     */
+    SessionSearchRepositoryImpl(
+            EntityManager entityManager,
+            @Value("${oc.app.search.fullText:false}") boolean fullText) {
+        this.entityManager = entityManager;
+        this.fullText = fullText;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Session> search(Date from, Date to, Long teacherId, String keyword,
+                                Date afterDate, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT s.* FROM SESSIONS s WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (from != null) {
+            sql.append(" AND s.date >= :from");
+            parameters.put("from", from);
+        }
+        if (to != null) {
+            sql.append(" AND s.date < :to");
+            parameters.put("to", to);
+        }
+        if (teacherId != null) {
+            sql.append(" AND s.teacher_id = :teacherId");
+            parameters.put("teacherId", teacherId);
+        }
+        List<String> terms = terms(keyword);
+        if (!terms.isEmpty() && fullText) {
+            sql.append(" AND MATCH (s.name, s.description) AGAINST (:keyword IN BOOLEAN MODE)");
+            parameters.put("keyword", "+" + String.join("* +", terms) + "*");
+        } else {
+            for (int i = 0; i < terms.size(); i++) {
+                sql.append(" AND (LOWER(s.name) LIKE :term").append(i)
+                        .append(" OR LOWER(s.description) LIKE :term").append(i).append(")");
+                parameters.put("term" + i, "%" + terms.get(i) + "%");
+            }
+        }
+        if (afterDate != null) {
+            sql.append(" AND (s.date > :afterDate OR (s.date = :afterDate AND s.id > :afterId))");
+            parameters.put("afterDate", afterDate);
+            parameters.put("afterId", afterId);
+        }
+        sql.append(" ORDER BY s.date, s.id");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Session.class);
+        parameters.forEach((name, value) -> {
+            if (value instanceof Date) {
+                query.setParameter(name, (Date) value, TemporalType.TIMESTAMP);
+            } else {
+                query.setParameter(name, value);
+            }
+        });
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    /**
+     * Lower-cased words of the keyword, at most MAX_TERMS. Splitting on
+     * anything but letters and digits also drops the full-text operators and
+     * the LIKE wildcards a user could type.
+     */
+    static List<String> terms(String keyword) {
+        if (keyword == null) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String word : keyword.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && terms.size() < MAX_TERMS) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+}
@@ -1,9 +1,14 @@
 package com.openclassrooms.starterjwt.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.openclassrooms.starterjwt.models.User;
 
@@ -12,4 +17,47 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
 
   Boolean existsByEmail(String email); 
+
+  /**
+   * Gives back the seat the user holds in each of their sessions, provided
+   * the id and email designate the same user.
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+    value = "UPDATE SESSIONS SET seats_taken = GREATEST(seats_taken - 1, 0)"
+      + " WHERE id IN (SELECT p.session_id FROM PARTICIPATE p WHERE p.user_id = :id)"
+      + " AND EXISTS (SELECT 1 FROM USERS u WHERE u.id = :id AND u.email = :email)",
+    nativeQuery = true
+  )
+  int releaseSeatsOf(@Param("id") Long id, @Param("email") String email);
+
+  /** Sessions the user takes part in, typed as Number like SessionParticipantId. */
+  @Query(value = "SELECT session_id FROM PARTICIPATE WHERE user_id = :id", nativeQuery = true)
+  List<Number> findParticipatedSessionIds(@Param("id") Long id);
+
+  /** Removes every participation of the user, under the same condition. */
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+    value = "DELETE FROM PARTICIPATE WHERE user_id = :id"
+      + " AND EXISTS (SELECT 1 FROM USERS u WHERE u.id = :id AND u.email = :email)",
+    nativeQuery = true
+  )
+  int deleteParticipationsOf(@Param("id") Long id, @Param("email") String email);
+
+  /** Cuts off every token issued to the user so far. */
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+  int incrementTokenVersion(@Param("id") Long id);
+
+  @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+  Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+  /** Returns the number of rows deleted, 0 when the id is unknown or belongs to another email. */
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM User u WHERE u.id = :id AND u.email = :email")
+  int deleteByIdAndEmail(@Param("id") Long id, @Param("email") String email);
 }
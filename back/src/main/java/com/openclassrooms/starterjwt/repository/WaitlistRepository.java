@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    /**
+     * Appends the user to the waitlist of an existing session, unless already
+     * waiting. Returns the number of rows inserted, 0 or 1.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "INSERT INTO WAITLIST (session_id, user_id, created_at)"
+                    + " SELECT s.id, :userId, CURRENT_TIMESTAMP FROM SESSIONS s"
+                    + " WHERE s.id = :sessionId AND NOT EXISTS"
+                    + " (SELECT 1 FROM WAITLIST w WHERE w.session_id = :sessionId AND w.user_id = :userId)",
+            nativeQuery = true)
+    int enqueue(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM WaitlistEntry w WHERE w.sessionId = :sessionId AND w.userId = :userId")
+    int dequeue(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /** Returns the number of rows deleted, 0 when the entry is already gone. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM WaitlistEntry w WHERE w.id = :id")
+    int dequeueById(@Param("id") Long id);
+
+    /** Oldest waiters first. */
+    List<WaitlistEntry> findBySessionIdOrderByIdAsc(Long sessionId, Pageable pageable);
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,14 +11,19 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.openclassrooms.starterjwt.security.crypto.BCryptStrengthCalibrator;
+import com.openclassrooms.starterjwt.security.crypto.BoundedPasswordEncoder;
+import com.openclassrooms.starterjwt.security.crypto.CalibratedBCryptPasswordEncoder;
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(
@@ -31,6 +37,27 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${oc.app.passwordHashingThreads}")
+  private int passwordHashingThreads;
+
+  @Value("${oc.app.passwordHashingQueueCapacity}")
+  private int passwordHashingQueueCapacity;
+
+  @Value("${oc.app.passwordHashingRetryAfterSeconds}")
+  private long passwordHashingRetryAfterSeconds;
+
+  @Value("${oc.app.passwordHashingTargetMs}")
+  private long passwordHashingTargetMs;
+
+  @Value("${oc.app.passwordHashingMinStrength}")
+  private int passwordHashingMinStrength;
+
+  @Value("${oc.app.passwordHashingMaxStrength}")
+  private int passwordHashingMaxStrength;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -49,7 +76,20 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    int strength = new BCryptStrengthCalibrator(
+        passwordHashingTargetMs,
+        passwordHashingMinStrength,
+        passwordHashingMaxStrength).calibrate();
+    Gauge.builder("password.hashing.strength", () -> strength)
+        .description("BCrypt strength selected by the startup calibration")
+        .register(meterRegistry);
+
+    return new BoundedPasswordEncoder(
+        new CalibratedBCryptPasswordEncoder(strength),
+        passwordHashingThreads,
+        passwordHashingQueueCapacity,
+        passwordHashingRetryAfterSeconds,
+        meterRegistry);
   }
 
   @Override
@@ -57,7 +97,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     http.cors().and().csrf().disable()
       .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
       .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
-      .authorizeRequests().antMatchers("/api/auth/**").permitAll()
+      .authorizeRequests().antMatchers("/api/auth/**", "/error").permitAll()
       .antMatchers("/api/**").authenticated()
       .anyRequest().authenticated();
 
@@ -0,0 +1,68 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the highest BCrypt strength whose hashing time stays within a target
+ * latency on the current machine. The time is measured once at the minimum
+ * strength and extrapolated, each extra cost unit doubling the work, so the
+ * calibration never has to run the expensive strengths at startup.
+ */
+public class BCryptStrengthCalibrator {
+  private static final Logger logger = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+  private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+  private static final int WARMUP_ROUNDS = 2;
+
+  private static final int MEASURED_ROUNDS = 3;
+
+  private final long targetMs;
+
+  private final int minStrength;
+
+  private final int maxStrength;
+
+  public BCryptStrengthCalibrator(long targetMs, int minStrength, int maxStrength) {
+    this.targetMs = targetMs;
+    this.minStrength = minStrength;
+    this.maxStrength = maxStrength;
+  }
+
+  public int calibrate() {
+    if (minStrength >= maxStrength) {
+      return minStrength;
+    }
+
+    long nanos = measure(minStrength);
+    long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMs);
+    int strength = minStrength;
+    while (strength < maxStrength && nanos * 2 <= targetNanos) {
+      nanos *= 2;
+      strength++;
+    }
+
+    logger.info("BCrypt strength calibrated to {} (~{} ms per hash, target {} ms)",
+        strength, TimeUnit.NANOSECONDS.toMillis(nanos), targetMs);
+    return strength;
+  }
+
+  long measure(int strength) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      encoder.encode(SAMPLE_PASSWORD);
+    }
+
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      long start = System.nanoTime();
+      encoder.encode(SAMPLE_PASSWORD);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+}
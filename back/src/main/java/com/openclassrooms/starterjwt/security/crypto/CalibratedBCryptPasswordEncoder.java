@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for a rehash when a stored hash was made with a
+ * lower cost than the current one, so stored passwords follow the strength
+ * calibrated for the current machine. Stronger hashes are kept: calibration
+ * depends on timing and differs between instances, and rehashing in both
+ * directions would make two instances rewrite the same hash on every login.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+  private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+  private final int strength;
+
+  public CalibratedBCryptPasswordEncoder(int strength) {
+    super(strength);
+    this.strength = strength;
+  }
+
+  public int getStrength() {
+    return strength;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+    Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+    return matcher.matches() && Integer.parseInt(matcher.group(1)) < strength;
+  }
+}
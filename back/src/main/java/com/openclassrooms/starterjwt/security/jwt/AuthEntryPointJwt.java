@@ -1,10 +1,14 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -15,29 +19,102 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Writes the 401 body from pre-serialized JSON fragments, only escaping the
+ * message and path of each request. Messages come from a handful of Spring
+ * Security constants, so their escaped bytes are cached. Every 401 is
+ * counted, but at most one is logged per second, with the number skipped.
+ */
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
   private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
 
+  private static final byte[] BODY_START = bytes(
+      "{\"status\":" + HttpServletResponse.SC_UNAUTHORIZED + ",\"error\":\"Unauthorized\",\"message\":\"");
+
+  private static final byte[] BODY_PATH = bytes("\",\"path\":\"");
+
+  private static final byte[] BODY_END = bytes("\"}");
+
+  private static final int MAX_CACHED_MESSAGES = 64;
+
+  private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, byte[]> escapedMessages = new ConcurrentHashMap<>();
+
+  private final AtomicLong nextLogAt = new AtomicLong(System.nanoTime());
+
+  private final AtomicLong suppressedLogs = new AtomicLong();
+
+  private final Counter unauthorized;
+
+  public AuthEntryPointJwt(MeterRegistry meterRegistry) {
+    this.unauthorized = Counter.builder("auth.unauthorized")
+        .description("Requests rejected with 401 by the authentication entry point")
+        .register(meterRegistry);
+  }
+
   @Override
   public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
       throws IOException, ServletException {
-    logger.error("Unauthorized error: {}", authException.getMessage());
+    unauthorized.increment();
+    logRateLimited(authException);
+
+    byte[] message = escapeMessage(authException.getMessage());
+    byte[] path = escape(request.getServletPath());
 
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    response.setContentLength(BODY_START.length + message.length + BODY_PATH.length + path.length + BODY_END.length);
 
-    final Map<String, Object> body = new HashMap<>();
-    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-    body.put("error", "Unauthorized");
-    body.put("message", authException.getMessage());
-    body.put("path", request.getServletPath());
+    ServletOutputStream out = response.getOutputStream();
+    out.write(BODY_START);
+    out.write(message);
+    out.write(BODY_PATH);
+    out.write(path);
+    out.write(BODY_END);
+  }
 
-    final ObjectMapper mapper = new ObjectMapper();
-    mapper.writeValue(response.getOutputStream(), body);
+  private void logRateLimited(AuthenticationException authException) {
+    long now = System.nanoTime();
+    long next = nextLogAt.get();
+    if (now - next >= 0 && nextLogAt.compareAndSet(next, now + LOG_INTERVAL_NANOS)) {
+      long suppressed = suppressedLogs.getAndSet(0);
+      if (suppressed > 0) {
+        logger.error("Unauthorized error: {} ({} more since last logged)", authException.getMessage(), suppressed);
+      } else {
+        logger.error("Unauthorized error: {}", authException.getMessage());
+      }
+    } else {
+      suppressedLogs.incrementAndGet();
+    }
   }
 
+  private byte[] escapeMessage(String message) {
+    if (message == null) {
+      return escape(null);
+    }
+    byte[] escaped = escapedMessages.get(message);
+    if (escaped == null) {
+      escaped = escape(message);
+      if (escapedMessages.size() < MAX_CACHED_MESSAGES) {
+        escapedMessages.putIfAbsent(message, escaped);
+      }
+    }
+    return escaped;
+  }
+
+  private static byte[] escape(String value) {
+    return JsonStringEncoder.getInstance().quoteAsUTF8(value != null ? value : "");
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
 }
@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+/**
+ * How AuthTokenFilter turns a bearer token into the request principal,
+ * selected with oc.app.authMode.
+ */
+public enum AuthMode {
+  /** Reload the user from the USERS table on every request. */
+  DATABASE,
+  /**
+   * Rebuild the principal from the signed JWT claims. Only the token version
+   * is checked, against TokenVersionRegistry, so no request needs a query.
+   */
+  CLAIMS,
+  /** Issue opaque tickets instead of JWTs, resolved from SessionTicketStore. */
+  TICKET
+}
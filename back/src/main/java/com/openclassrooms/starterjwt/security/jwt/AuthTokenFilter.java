@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,8 +18,11 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.services.SessionTicketStore;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtils jwtUtils;
@@ -26,6 +30,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private RevokedTokenRegistry revokedTokenRegistry;
+
+  @Autowired
+  private SessionTicketStore sessionTicketStore;
+
+  @Value("${oc.app.authMode:database}")
+  private AuthMode authMode;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -33,10 +46,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      UserDetails userDetails = authMode == AuthMode.TICKET
+          ? sessionTicketStore.resolve(jwt)
+          : getUserDetailsFromJwt(jwt);
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -53,6 +66,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails getUserDetailsFromJwt(String jwt) {
+    Claims claims = jwt != null ? jwtUtils.parseJwtClaims(jwt) : null;
+    if (claims == null
+        || jwtUtils.isRefreshToken(claims)
+        || revokedTokenRegistry.isRevoked(jwtUtils.getSessionId(claims))) {
+      return null;
+    }
+    return authMode == AuthMode.CLAIMS
+        ? jwtUtils.getUserDetailsFromJwtClaims(claims)
+        : userDetailsService.loadUserByUsername(claims.getSubject());
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
@@ -1,9 +1,14 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
+
+import javax.crypto.spec.SecretKeySpec;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -11,35 +16,93 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS512;
+
+  static final String CLAIM_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
+  static final String CLAIM_TOKEN_VERSION = "ver";
+  static final String CLAIM_SESSION_ID = "sid";
+  static final String CLAIM_TOKEN_TYPE = "typ";
+  static final String TOKEN_TYPE_REFRESH = "refresh";
+
   @Value("${oc.app.jwtSecret}") String jwtSecret;
 
   @Value("${oc.app.jwtExpirationMs}") int jwtExpirationMs;
 
-  public String generateJwtToken(Authentication authentication) {
+  @Value("${oc.app.jwtRefreshExpirationMs}") long jwtRefreshExpirationMs;
+
+  @Autowired TokenVersionRegistry tokenVersionRegistry;
 
-    UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+  // Built on first use from jwtSecret, then shared: the parser is never
+  // reconfigured afterwards, so concurrent parseClaimsJws calls are safe.
+  private volatile Key signingKey;
+
+  private volatile JwtParser jwtParser;
+
+  public String generateJwtToken(Authentication authentication) {
+    return generateJwtToken((UserDetailsImpl) authentication.getPrincipal(), null);
+  }
 
+  /**
+   * Access token for the given principal. The session id ties it to the
+   * refresh token issued with it, so that revoking the session at logout
+   * also cuts off access tokens that have not expired yet.
+   */
+  public String generateJwtToken(UserDetailsImpl userPrincipal, String sessionId) {
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, userPrincipal.getAdmin())
+        .claim(CLAIM_TOKEN_VERSION, tokenVersionRegistry.currentVersion(userPrincipal))
+        .claim(CLAIM_SESSION_ID, sessionId)
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .signWith(SIGNATURE_ALGORITHM, getSigningKey())
         .compact();
   }
 
-  public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+  /**
+   * Long-lived token only accepted by /api/auth/refresh and /api/auth/logout.
+   * Each one gets its own id, so a used refresh token can be revoked on its
+   * own while the session goes on.
+   */
+  public String generateRefreshToken(UserDetailsImpl userPrincipal, String sessionId) {
+    return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
+        .setSubject(userPrincipal.getUsername())
+        .claim(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH)
+        .claim(CLAIM_SESSION_ID, sessionId)
+        .setIssuedAt(new Date())
+        .setExpiration(new Date((new Date()).getTime() + jwtRefreshExpirationMs))
+        .signWith(SIGNATURE_ALGORITHM, getSigningKey())
+        .compact();
   }
 
-  public boolean validateJwtToken(String authToken) {
+  public boolean isRefreshToken(Claims claims) {
+    return TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class));
+  }
+
+  public String getSessionId(Claims claims) {
+    return claims.get(CLAIM_SESSION_ID, String.class);
+  }
+
+  /**
+   * Verifies the signature and expiry of the token and returns its claims,
+   * decoding the token only once. Returns null when the token is not valid.
+   */
+  public Claims parseJwtClaims(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return getParser().parseClaimsJws(authToken).getBody();
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
     } catch (MalformedJwtException e) {
@@ -52,6 +115,55 @@ public class JwtUtils {
       logger.error("JWT claims string is empty: {}", e.getMessage());
     }
 
-    return false;
+    return null;
+  }
+
+  /**
+   * Rebuilds the principal carried by verified claims, without any database
+   * access. Returns null when the user has been deleted or their token
+   * version revoked since the token was issued.
+   */
+  public UserDetailsImpl getUserDetailsFromJwtClaims(Claims claims) {
+    Long id = claims.get(CLAIM_ID, Long.class);
+    Integer version = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+    if (id == null
+        || !tokenVersionRegistry.isCurrent(id, version != null ? version : 0)) {
+      logger.error("JWT token version is revoked for user: {}", claims.getSubject());
+      return null;
+    }
+
+    return UserDetailsImpl.builder()
+        .id(id)
+        .username(claims.getSubject())
+        .firstName(claims.get(CLAIM_FIRST_NAME, String.class))
+        .lastName(claims.get(CLAIM_LAST_NAME, String.class))
+        .admin(claims.get(CLAIM_ADMIN, Boolean.class))
+        .build();
+  }
+
+  public String getUserNameFromJwtToken(String token) {
+    return getParser().parseClaimsJws(token).getBody().getSubject();
+  }
+
+  public boolean validateJwtToken(String authToken) {
+    return parseJwtClaims(authToken) != null;
+  }
+
+  private Key getSigningKey() {
+    Key key = signingKey;
+    if (key == null) {
+      key = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SIGNATURE_ALGORITHM.getJcaName());
+      signingKey = key;
+    }
+    return key;
+  }
+
+  private JwtParser getParser() {
+    JwtParser parser = jwtParser;
+    if (parser == null) {
+      parser = Jwts.parser().setSigningKey(getSigningKey());
+      jwtParser = parser;
+    }
+    return parser;
   }
 }
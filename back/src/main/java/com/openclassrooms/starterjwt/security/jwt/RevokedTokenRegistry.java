@@ -0,0 +1,127 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token and session ids revoked before their expiry. Ids are grouped in
+ * buckets by the time they expire, so a whole bucket is dropped once every
+ * token in it has expired anyway and memory stays bounded by the refresh
+ * token lifetime. Each bucket has a small Bloom filter in front of its exact
+ * set: lookups for ids that were never revoked, i.e. nearly every request,
+ * cost a few bit reads per bucket and never reach the set. Kept in memory,
+ * so revocations are per instance.
+ */
+@Component
+public class RevokedTokenRegistry {
+  private static final int BUCKETS = 8;
+
+  private static final int BLOOM_BITS = 1 << 16;
+
+  private static final int BLOOM_HASHES = 3;
+
+  private final long bucketMs;
+
+  // One extra slot for the bucket being filled while the oldest drains.
+  private final AtomicReferenceArray<Bucket> slots = new AtomicReferenceArray<>(BUCKETS + 2);
+
+  public RevokedTokenRegistry(@Value("${oc.app.jwtRefreshExpirationMs}") long maxLifetimeMs) {
+    this.bucketMs = Math.max(1, maxLifetimeMs / BUCKETS);
+  }
+
+  /**
+   * Returns true only for the one call that revoked the id, so that
+   * concurrent callers racing on the same id can tell which of them won.
+   * An id that is null or already expired is never revoked.
+   */
+  public boolean revoke(String id, long expiresAtMs) {
+    if (id == null || expiresAtMs <= System.currentTimeMillis()) {
+      return false;
+    }
+    return bucketFor(expiresAtMs / bucketMs).add(id);
+  }
+
+  public boolean isRevoked(String id) {
+    if (id == null) {
+      return false;
+    }
+    long now = System.currentTimeMillis();
+    int hash = id.hashCode();
+    for (int i = 0; i < slots.length(); i++) {
+      Bucket bucket = slots.get(i);
+      if (bucket != null && !bucket.isExpired(now, bucketMs) && bucket.contains(id, hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Bucket bucketFor(long epoch) {
+    int slot = (int) (epoch % slots.length());
+    while (true) {
+      Bucket current = slots.get(slot);
+      if (current != null && current.epoch == epoch) {
+        return current;
+      }
+      Bucket fresh = new Bucket(epoch);
+      if (slots.compareAndSet(slot, current, fresh)) {
+        return fresh;
+      }
+    }
+  }
+
+  private static final class Bucket {
+    private final long epoch;
+
+    private final AtomicLongArray bloom = new AtomicLongArray(BLOOM_BITS / Long.SIZE);
+
+    private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+    private Bucket(long epoch) {
+      this.epoch = epoch;
+    }
+
+    private boolean isExpired(long now, long bucketMs) {
+      return (epoch + 1) * bucketMs <= now;
+    }
+
+    private boolean add(String id) {
+      // The exact set is filled first, so a Bloom hit always finds the id.
+      if (!ids.add(id)) {
+        return false;
+      }
+      int hash = id.hashCode();
+      for (int i = 0; i < BLOOM_HASHES; i++) {
+        int bit = bitIndex(hash, i);
+        long mask = 1L << bit;
+        int word = bit >>> 6;
+        long value;
+        do {
+          value = bloom.get(word);
+        } while ((value & mask) == 0 && !bloom.compareAndSet(word, value, value | mask));
+      }
+      return true;
+    }
+
+    private boolean contains(String id, int hash) {
+      for (int i = 0; i < BLOOM_HASHES; i++) {
+        int bit = bitIndex(hash, i);
+        if ((bloom.get(bit >>> 6) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return ids.contains(id);
+    }
+
+    private static int bitIndex(int hash, int i) {
+      int second = hash * 0x9E3779B9;
+      second ^= second >>> 16;
+      return (hash + i * (second | 1)) & (BLOOM_BITS - 1);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+/**
+ * Token versions per user. The current version is persisted in
+ * USERS.token_version, so tokens issued after a restart carry it. Checking
+ * a token only looks at an in-memory map of the minimum valid version of
+ * the users invalidated on this instance: no query on the request path.
+ * Entries outlive every access token issued before them and then expire,
+ * so the map only holds recent invalidations. An invalidation made on
+ * another instance is not seen here.
+ */
+@Component
+public class TokenVersionRegistry {
+  private final UserRepository userRepository;
+
+  private final UserDetailsCache userDetailsCache;
+
+  private final Cache<Long, Integer> minimumVersions;
+
+  public TokenVersionRegistry(
+      UserRepository userRepository,
+      UserDetailsCache userDetailsCache,
+      @Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs) {
+    this.userRepository = userRepository;
+    this.userDetailsCache = userDetailsCache;
+    this.minimumVersions = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofMillis(jwtExpirationMs))
+        .build();
+  }
+
+  public int currentVersion(UserDetailsImpl userDetails) {
+    Integer version = userDetails.getTokenVersion();
+    return version != null ? version : 0;
+  }
+
+  /** False when the user has been invalidated since the version was issued. */
+  public boolean isCurrent(Long userId, int version) {
+    Integer minimumVersion = minimumVersions.getIfPresent(userId);
+    return minimumVersion == null || version >= minimumVersion;
+  }
+
+  /**
+   * Cuts off every token issued to the user so far. Once the user row is
+   * gone, no version is valid any more.
+   */
+  public void invalidate(Long userId) {
+    int minimumVersion = userRepository.incrementTokenVersion(userId) == 0
+        ? Integer.MAX_VALUE
+        : userRepository.findTokenVersionById(userId).orElse(Integer.MAX_VALUE);
+    minimumVersions.asMap().merge(userId, minimumVersion, Math::max);
+    userDetailsCache.evictUser(userId);
+  }
+}
@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Throttles failed logins per account (email) and per client IP, so that
+ * credential stuffing is rejected before any password hash is computed.
+ */
+@Component
+public class LoginAttemptLimiter {
+  private final SlidingWindowRateLimiter accountFailures;
+
+  private final SlidingWindowRateLimiter ipFailures;
+
+  private final Counter rejected;
+
+  public LoginAttemptLimiter(
+      @Value("${oc.app.loginMaxFailuresPerAccount:5}") int maxFailuresPerAccount,
+      @Value("${oc.app.loginMaxFailuresPerIp:20}") int maxFailuresPerIp,
+      @Value("${oc.app.loginFailureWindowMs:60000}") long windowMs,
+      MeterRegistry meterRegistry) {
+    this.accountFailures = new SlidingWindowRateLimiter(maxFailuresPerAccount, windowMs);
+    this.ipFailures = new SlidingWindowRateLimiter(maxFailuresPerIp, windowMs);
+    this.rejected = Counter.builder("auth.login.throttled")
+        .description("Login attempts rejected by the per-account or per-IP limit")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Counts the attempt against the account and IP limits in the same step as
+   * the check, so concurrent attempts cannot all get through before any of
+   * them fails. The attempt stays counted as a failure unless recordSuccess
+   * is called with the returned time. When a limit is reached, Retry-After is
+   * the time until every window that tripped lets the attempt through.
+   */
+  public long checkAllowed(String email, String clientIp) {
+    long now = System.currentTimeMillis();
+    long waitMs = accountFailures.tryAcquire(accountKey(email), now);
+    if (waitMs > 0) {
+      waitMs = Math.max(waitMs, ipFailures.waitMs(clientIp, now));
+    } else {
+      waitMs = ipFailures.tryAcquire(clientIp, now);
+      if (waitMs > 0) {
+        accountFailures.release(accountKey(email), now);
+      }
+    }
+    if (waitMs > 0) {
+      rejected.increment();
+      throw new TooManyRequestsException(Math.max(1, (waitMs + 999) / 1000));
+    }
+    return now;
+  }
+
+  /** Clears the account failures and takes back the attempt from the IP count. */
+  public void recordSuccess(String email, String clientIp, long attemptedAt) {
+    accountFailures.reset(accountKey(email));
+    ipFailures.release(clientIp, attemptedAt);
+  }
+
+  private String accountKey(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Opaque session tickets for the TICKET auth mode. A ticket is 256 random
+ * bits and maps to the principal it was issued for, so resolving it is a
+ * single lookup in the concurrent (internally striped) Caffeine map. Tickets
+ * expire after oc.app.ticketTtlMs without use. The store is in memory, so
+ * tickets are per instance and do not survive a restart.
+ */
+@Component
+public class SessionTicketStore {
+  private static final int TICKET_BYTES = 32;
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private final SecureRandom random = new SecureRandom();
+
+  private final Cache<String, UserDetailsImpl> tickets;
+
+  public SessionTicketStore(
+      @Value("${oc.app.ticketStoreMaxSize:100000}") long maxSize,
+      @Value("${oc.app.ticketTtlMs:1800000}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.tickets = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterAccess(Duration.ofMillis(ttlMs))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, tickets, "sessionTickets");
+  }
+
+  public String issue(UserDetailsImpl userDetails) {
+    byte[] bytes = new byte[TICKET_BYTES];
+    random.nextBytes(bytes);
+    String ticket = ENCODER.encodeToString(bytes);
+
+    // The password hash has no business staying in memory with the ticket.
+    tickets.put(ticket, UserDetailsImpl.builder()
+        .id(userDetails.getId())
+        .username(userDetails.getUsername())
+        .firstName(userDetails.getFirstName())
+        .lastName(userDetails.getLastName())
+        .admin(userDetails.getAdmin())
+        .build());
+    return ticket;
+  }
+
+  public UserDetailsImpl resolve(String ticket) {
+    return ticket != null ? tickets.getIfPresent(ticket) : null;
+  }
+
+  /**
+   * Removes the ticket and returns the principal it was issued for, or null
+   * when it was unknown, expired or already removed. Only one of several
+   * concurrent calls for the same ticket gets the principal.
+   */
+  public UserDetailsImpl revoke(String ticket) {
+    return ticket != null ? tickets.asMap().remove(ticket) : null;
+  }
+
+  public void revokeUser(Long id) {
+    tickets.asMap().values().removeIf(userDetails -> id.equals(userDetails.getId()));
+  }
+}
@@ -0,0 +1,196 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts events per key over a sliding time window. Each key keeps the
+ * timestamps of its last {@code limit} events in a ring, so a key is over
+ * the limit exactly when the oldest of them is still inside the window.
+ * Keys are spread over independently locked stripes, so concurrent callers
+ * only contend when their keys hash to the same stripe. Each stripe drops
+ * its expired keys at most once per window, so the cost of the purge is
+ * spread over every event recorded in that window.
+ */
+public class SlidingWindowRateLimiter {
+  private static final int STRIPES = 64;
+
+  private final int limit;
+
+  private final long windowMs;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  public SlidingWindowRateLimiter(int limit, long windowMs) {
+    if (limit < 1 || windowMs < 1) {
+      throw new IllegalArgumentException("limit and windowMs must be at least 1");
+    }
+    this.limit = limit;
+    this.windowMs = windowMs;
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  public boolean isOverLimit(String key, long now) {
+    return waitMs(key, now) > 0;
+  }
+
+  /**
+   * Records an event for the key only if it is under the limit, in the same
+   * step as the check. Returns 0 when the event was recorded, otherwise the
+   * time until the oldest event leaves the window.
+   */
+  public long tryAcquire(String key, long now) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      Window window = stripe.windows.get(key);
+      if (window != null && window.isFull(now, windowMs)) {
+        return window.waitMs(now, windowMs);
+      }
+      record(stripe, key, now);
+      return 0;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /** Time until the key is back under the limit, 0 when it already is. */
+  public long waitMs(String key, long now) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      Window window = stripe.windows.get(key);
+      return window != null && window.isFull(now, windowMs) ? window.waitMs(now, windowMs) : 0;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  public void record(String key, long now) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      record(stripe, key, now);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /** Takes back one event recorded at the given time, if it is still counted. */
+  public void release(String key, long timestamp) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      Window window = stripe.windows.get(key);
+      if (window != null) {
+        window.remove(timestamp);
+      }
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  public void reset(String key) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      stripe.windows.remove(key);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        size += stripe.windows.size();
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  private void record(Stripe stripe, String key, long now) {
+    if (now >= stripe.nextPurgeMs) {
+      purgeExpired(stripe, now);
+      stripe.nextPurgeMs = now + windowMs;
+    }
+    stripe.windows.computeIfAbsent(key, k -> new Window(limit)).add(now);
+  }
+
+  private void purgeExpired(Stripe stripe, long now) {
+    Iterator<Window> iterator = stripe.windows.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isExpired(now, windowMs)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private Stripe stripeFor(String key) {
+    int hash = key.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  private static final class Stripe {
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<String, Window> windows = new HashMap<>();
+
+    private long nextPurgeMs;
+  }
+
+  private static final class Window {
+    private final long[] timestamps;
+
+    private int cursor;
+
+    private Window(int limit) {
+      this.timestamps = new long[limit];
+    }
+
+    private void add(long now) {
+      timestamps[cursor] = now;
+      cursor = (cursor + 1) % timestamps.length;
+    }
+
+    /**
+     * Removes the newest event recorded at the given time. The older events
+     * move up one slot, so the free slot is the oldest one, at the cursor.
+     */
+    private void remove(long timestamp) {
+      int length = timestamps.length;
+      for (int age = 1; age <= length; age++) {
+        int index = (cursor + length - age) % length;
+        if (timestamps[index] == timestamp) {
+          for (int i = index; i != cursor; i = (i + length - 1) % length) {
+            timestamps[i] = timestamps[(i + length - 1) % length];
+          }
+          timestamps[cursor] = 0;
+          return;
+        }
+      }
+    }
+
+    private boolean isFull(long now, long windowMs) {
+      long oldest = timestamps[cursor];
+      return oldest != 0 && now - oldest < windowMs;
+    }
+
+    private long waitMs(long now, long windowMs) {
+      return timestamps[cursor] + windowMs - now;
+    }
+
+    private boolean isExpired(long now, long windowMs) {
+      long newest = timestamps[(cursor + timestamps.length - 1) % timestamps.length];
+      return now - newest >= windowMs;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, expiring cache of database-backed principals keyed by email.
+ * Hit, miss and eviction counts are published as the "userDetails" cache
+ * metrics. Entries must be evicted whenever the underlying user changes.
+ */
+@Component
+public class UserDetailsCache {
+  private final Cache<String, UserDetailsImpl> cache;
+
+  public UserDetailsCache(
+      @Value("${oc.app.userCacheMaxSize:10000}") long maxSize,
+      @Value("${oc.app.userCacheTtlMs:300000}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttlMs))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+  }
+
+  public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+    return cache.get(email, loader);
+  }
+
+  public void evict(String email) {
+    cache.invalidate(email);
+  }
+
+  public void evictUser(Long id) {
+    cache.asMap().values().removeIf(userDetails -> id.equals(userDetails.getId()));
+  }
+}
@@ -29,6 +29,8 @@ public class UserDetailsImpl implements UserDetails {
 
   private Boolean admin;
 
+  private Integer tokenVersion;
+
   @JsonIgnore
   private String password;  
   
@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 rows one at a time, so that an upload is never held in
+ * memory as a whole. Empty fields come back as null.
+ */
+class CsvReader {
+    private final Reader in;
+
+    private int line = 1;
+
+    // Line on which the last row returned by readRow started.
+    private int rowLine;
+
+    // Character read ahead by peek, or -2 when there is none.
+    private int next = -2;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    int getLine() {
+        return rowLine;
+    }
+
+    /** The fields of the next row, or null at the end of the input. */
+    List<String> readRow() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        rowLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                c = readQuoted(field);
+                continue;
+            }
+            if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+                fields.add(field.length() > 0 || quoted ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+                if (c == ',') {
+                    c = read();
+                    continue;
+                }
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c != -1) {
+                    line++;
+                }
+                return fields;
+            }
+            if (quoted) {
+                throw new IOException("Unexpected character after a quoted field on line " + line);
+            }
+            field.append((char) c);
+            c = read();
+        }
+    }
+
+    /** Appends a quoted field up to its closing quote and returns the character after it. */
+    private int readQuoted(StringBuilder field) throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field on line " + rowLine);
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return read();
+                }
+                read();
+            } else if (c == '\n') {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (next != -2) {
+            int c = next;
+            next = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = in.read();
+        }
+        return next;
+    }
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/** Writes RFC 4180 rows: fields holding a comma, a quote or a line break are quoted. */
+class CsvWriter {
+    private final Writer out;
+
+    CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    void writeRow(List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String field = fields.get(i);
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0
+                    && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                out.write(field);
+            } else {
+                out.write('"');
+                out.write(field.replace("\"", "\"\""));
+                out.write('"');
+            }
+        }
+        out.write("\r\n");
+    }
+}
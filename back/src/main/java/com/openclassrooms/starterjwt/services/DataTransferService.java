@@ -0,0 +1,398 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.ImportSummary;
+import com.openclassrooms.starterjwt.dto.TransferRecord;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.DataTransferRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolationException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Moves teachers, sessions and participations in and out as one stream of
+ * records, NDJSON or CSV. Neither direction holds more than a batch of rows
+ * in memory; imports keep only the mapping from exported to new ids.
+ */
+@Service
+public class DataTransferService {
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Bad request: unknown format " + name + ".");
+        }
+    }
+
+    static final List<String> CSV_COLUMNS = Arrays.asList(
+            "type", "id", "lastName", "firstName", "name", "description", "date",
+            "teacher_id", "capacity", "session_id", "user_id");
+
+    private final DataTransferRepository dataTransferRepository;
+
+    private final TeacherRepository teacherRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int batchSize;
+
+    public DataTransferService(
+            DataTransferRepository dataTransferRepository,
+            TeacherRepository teacherRepository,
+            SessionRepository sessionRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${oc.app.transferBatchSize:500}") int batchSize) {
+        this.dataTransferRepository = dataTransferRepository;
+        this.teacherRepository = teacherRepository;
+        this.sessionRepository = sessionRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes every teacher, then every session, then every participation.
+     * The three reads share one read-only transaction, so they see the same
+     * snapshot of the database.
+     */
+    public void export(Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Consumer<TransferRecord> sink;
+        if (format == Format.CSV) {
+            CsvWriter csv = new CsvWriter(writer);
+            csv.writeRow(CSV_COLUMNS);
+            sink = record -> {
+                try {
+                    csv.writeRow(toRow(record));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            sink = record -> {
+                try {
+                    generator.writeObject(record);
+                    generator.flush();
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        }
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                dataTransferRepository.forEachTeacher(sink);
+                dataTransferRepository.forEachSession(sink);
+                dataTransferRepository.forEachParticipation(sink);
+            });
+        } catch (UncheckedIOException e) {
+            // Most often the client went away: the response is lost anyway.
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads the upload record by record and writes it in batches, all in one
+     * transaction. Teachers and sessions get new ids, and the references of
+     * the records that follow are translated to them, so records must come
+     * in the order of the export. Participants must already exist as users;
+     * capacities are not checked against them.
+     */
+    @Transactional
+    public ImportSummary importData(Format format, InputStream in) throws IOException {
+        Importer importer = new Importer();
+        if (format == Format.CSV) {
+            CsvReader csv = new CsvReader(
+                    new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            List<String> header = readCsvRow(csv);
+            if (header == null) {
+                throw new BadRequestException("Bad request: the upload is empty.");
+            }
+            List<String> row;
+            while ((row = readCsvRow(csv)) != null) {
+                if (row.size() == 1 && row.get(0) == null) {
+                    continue;
+                }
+                importer.accept(fromRow(header, row, csv.getLine()), csv.getLine());
+            }
+        } else {
+            try (MappingIterator<TransferRecord> records =
+                         objectMapper.readerFor(TransferRecord.class).readValues(in)) {
+                try {
+                    while (records.hasNextValue()) {
+                        TransferRecord record = records.nextValue();
+                        importer.accept(record, records.getCurrentLocation().getLineNr());
+                    }
+                } catch (JsonProcessingException e) {
+                    // Mapping errors do not always carry their location.
+                    throw malformedRecord(e.getLocation() != null ? e.getLocation() : records.getCurrentLocation());
+                }
+            } catch (JsonProcessingException e) {
+                throw malformedRecord(e.getLocation());
+            }
+        }
+        importer.flush();
+        return importer.summary;
+    }
+
+    private static BadRequestException malformedRecord(JsonLocation location) {
+        if (location == null) {
+            return new BadRequestException("Bad request: malformed record.");
+        }
+        return new BadRequestException("Bad request: malformed record on line " + location.getLineNr() + ".");
+    }
+
+    private static List<String> readCsvRow(CsvReader csv) {
+        try {
+            return csv.readRow();
+        } catch (IOException e) {
+            throw new BadRequestException("Bad request: " + e.getMessage() + ".");
+        }
+    }
+
+    private static List<String> toRow(TransferRecord record) {
+        return Arrays.asList(
+                record.getType(),
+                toString(record.getId()),
+                record.getLastName(),
+                record.getFirstName(),
+                record.getName(),
+                record.getDescription(),
+                toString(record.getDate()),
+                toString(record.getTeacher_id()),
+                toString(record.getCapacity()),
+                toString(record.getSession_id()),
+                toString(record.getUser_id()));
+    }
+
+    private static TransferRecord fromRow(List<String> header, List<String> row, int line) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size() && i < row.size(); i++) {
+            fields.put(header.get(i), row.get(i));
+        }
+        try {
+            String date = fields.get("date");
+            return new TransferRecord()
+                    .setType(fields.get("type"))
+                    .setId(toLong(fields.get("id")))
+                    .setLastName(fields.get("lastName"))
+                    .setFirstName(fields.get("firstName"))
+                    .setName(fields.get("name"))
+                    .setDescription(fields.get("description"))
+                    .setDate(date != null ? Instant.parse(date) : null)
+                    .setTeacher_id(toLong(fields.get("teacher_id")))
+                    .setCapacity(fields.get("capacity") != null ? Integer.valueOf(fields.get("capacity")) : null)
+                    .setSession_id(toLong(fields.get("session_id")))
+                    .setUser_id(toLong(fields.get("user_id")));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestException("Bad request: malformed record on line " + line + ".");
+        }
+    }
+
+    private static String toString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Long toLong(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    /**
+     * Buffers records of one type and writes them when the batch is full or
+     * the type changes; references only ever point to earlier types, which
+     * are then already written and mapped.
+     */
+    private class Importer {
+        private final Map<Long, Long> teacherIds = new HashMap<>();
+
+        private final Map<Long, Long> sessionIds = new HashMap<>();
+
+        private final List<Teacher> teachers = new ArrayList<>();
+
+        private final List<Long> exportedTeacherIds = new ArrayList<>();
+
+        private final List<Session> sessions = new ArrayList<>();
+
+        private final List<Long> exportedSessionIds = new ArrayList<>();
+
+        // New session id -> users to add to it.
+        private final Map<Long, List<Long>> participants = new LinkedHashMap<>();
+
+        private final ImportSummary summary = new ImportSummary();
+
+        private String type;
+
+        private int pending;
+
+        private long line;
+
+        void accept(TransferRecord record, long line) {
+            if (record.getType() == null) {
+                throw invalid(line);
+            }
+            if (pending >= batchSize || !record.getType().equals(type)) {
+                flush();
+            }
+            this.type = record.getType();
+            this.line = line;
+
+            switch (record.getType()) {
+                case TransferRecord.TEACHER:
+                    if (record.getId() == null || teacherIds.containsKey(record.getId())) {
+                        throw invalid(line);
+                    }
+                    teachers.add(new Teacher()
+                            .setLastName(record.getLastName())
+                            .setFirstName(record.getFirstName()));
+                    exportedTeacherIds.add(record.getId());
+                    break;
+                case TransferRecord.SESSION:
+                    if (record.getId() == null || sessionIds.containsKey(record.getId())) {
+                        throw invalid(line);
+                    }
+                    Teacher teacher = null;
+                    if (record.getTeacher_id() != null) {
+                        Long teacherId = teacherIds.get(record.getTeacher_id());
+                        if (teacherId == null) {
+                            throw new BadRequestException("Bad request: unknown teacher "
+                                    + record.getTeacher_id() + " on line " + line + ".");
+                        }
+                        teacher = teacherRepository.getById(teacherId);
+                    }
+                    sessions.add(new Session()
+                            .setName(record.getName())
+                            .setDescription(record.getDescription())
+                            .setDate(record.getDate() != null ? Date.from(record.getDate()) : null)
+                            .setTeacher(teacher)
+                            .setCapacity(record.getCapacity()));
+                    exportedSessionIds.add(record.getId());
+                    break;
+                case TransferRecord.PARTICIPATION:
+                    Long sessionId = sessionIds.get(record.getSession_id());
+                    if (sessionId == null) {
+                        throw new BadRequestException("Bad request: unknown session "
+                                + record.getSession_id() + " on line " + line + ".");
+                    }
+                    if (record.getUser_id() == null) {
+                        throw invalid(line);
+                    }
+                    participants.computeIfAbsent(sessionId, id -> new ArrayList<>()).add(record.getUser_id());
+                    break;
+                default:
+                    throw invalid(line);
+            }
+            pending++;
+        }
+
+        /**
+         * Teachers and sessions take pooled ids on saveAll and are inserted in
+         * JDBC batches by the flush; clearing the persistence context afterwards
+         * keeps it from growing with the upload.
+         */
+        void flush() {
+            if (pending == 0) {
+                return;
+            }
+            try {
+                if (!teachers.isEmpty()) {
+                    teacherRepository.saveAll(teachers);
+                    for (int i = 0; i < teachers.size(); i++) {
+                        teacherIds.put(exportedTeacherIds.get(i), teachers.get(i).getId());
+                    }
+                    summary.setTeachers(summary.getTeachers() + teachers.size());
+                }
+                if (!sessions.isEmpty()) {
+                    sessionRepository.saveAll(sessions);
+                    for (int i = 0; i < sessions.size(); i++) {
+                        sessionIds.put(exportedSessionIds.get(i), sessions.get(i).getId());
+                    }
+                    summary.setSessions(summary.getSessions() + sessions.size());
+                }
+                sessionRepository.flush();
+                for (Map.Entry<Long, List<Long>> entry : participants.entrySet()) {
+                    sessionRepository.insertParticipations(entry.getKey(), entry.getValue());
+                    summary.setParticipations(summary.getParticipations() + entry.getValue().size());
+                }
+            } catch (ConstraintViolationException | DataIntegrityViolationException e) {
+                throw new BadRequestException("Bad request: the batch ending on line "
+                        + line + " could not be imported.");
+            }
+            entityManager.clear();
+            teachers.clear();
+            exportedTeacherIds.clear();
+            sessions.clear();
+            exportedSessionIds.clear();
+            participants.clear();
+            pending = 0;
+        }
+
+        private BadRequestException invalid(long line) {
+            return new BadRequestException("Bad request: invalid record on line " + line + ".");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.Value;
+
+/**
+ * Published when a participant leaves a session. Handled once the
+ * cancellation has committed, to hand the seat to the waitlist.
+ */
+@Value
+public class SeatReleasedEvent {
+    Long sessionId;
+
+    /** System.nanoTime() at release, the start of the promotion lag. */
+    long releasedAtNanos;
+}
@@ -0,0 +1,168 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class SessionSeriesService {
+    private final SessionSeriesRepository sessionSeriesRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int maxOccurrences;
+
+    public SessionSeriesService(
+            SessionSeriesRepository sessionSeriesRepository,
+            SessionRepository sessionRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${oc.app.seriesMaxOccurrences:104}") int maxOccurrences) {
+        this.sessionSeriesRepository = sessionSeriesRepository;
+        this.sessionRepository = sessionRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxOccurrences = maxOccurrences;
+    }
+
+    /**
+     * Saves the series and all of its occurrences. Session ids are pooled,
+     * so Hibernate writes the occurrences in JDBC batches on flush.
+     */
+    @Transactional
+    public SessionSeries create(SessionSeries series) {
+        requireTeacher(series);
+        if (series.getIntervalWeeks() < 1) {
+            throw new BadRequestException("Bad request: the interval must be at least one week.");
+        }
+        List<Date> dates = occurrences(series, this.maxOccurrences + 1);
+        if (dates.isEmpty()) {
+            throw new BadRequestException("Bad request: the series has no occurrence.");
+        }
+        if (dates.size() > this.maxOccurrences) {
+            throw new BadRequestException(
+                    "Bad request: a series cannot have more than " + this.maxOccurrences + " occurrences.");
+        }
+
+        SessionSeries saved = this.sessionSeriesRepository.save(series);
+        List<Session> sessions = new ArrayList<>(dates.size());
+        for (Date date : dates) {
+            sessions.add(new Session()
+                    .setName(saved.getName())
+                    .setDescription(saved.getDescription())
+                    .setDate(date)
+                    .setTeacher(saved.getTeacher())
+                    .setCapacity(saved.getCapacity())
+                    .setSeriesId(saved.getId()));
+        }
+        this.sessionRepository.saveAll(sessions);
+        return saved;
+    }
+
+    public SessionSeries findById(Long id) {
+        return this.sessionSeriesRepository.findById(id).orElse(null);
+    }
+
+    public long countOccurrences(Long id) {
+        return this.sessionRepository.countBySeriesId(id);
+    }
+
+    /**
+     * Applies the name, description, teacher and capacity of the given series
+     * to the stored one and, with a single UPDATE, to its upcoming
+     * occurrences. Past occurrences keep what they were held with, and the
+     * recurrence itself is fixed at creation. Occurrences that gain seats
+     * offer them to their waitlists.
+     */
+    @Transactional
+    public SessionSeries update(Long id, SessionSeries changes) {
+        SessionSeries series = this.sessionSeriesRepository.findById(id).orElseThrow(NotFoundException::new);
+        requireTeacher(changes);
+        series.setName(changes.getName())
+                .setDescription(changes.getDescription())
+                .setTeacher(changes.getTeacher())
+                .setCapacity(changes.getCapacity());
+
+        Date now = new Date();
+        List<Number> raised = this.sessionRepository.lockOccurrencesBelowCapacityFrom(
+                id, now, series.getCapacity() != null ? series.getCapacity() : Integer.MAX_VALUE);
+        this.sessionRepository.updateOccurrencesFrom(
+                id,
+                now,
+                series.getName(),
+                series.getDescription(),
+                series.getTeacher().getId(),
+                series.getCapacity());
+        // The update above holds the occurrence rows, so no booking slips in.
+        if (series.getCapacity() != null && this.sessionRepository.countOverbookedOccurrencesFrom(id, now) > 0) {
+            throw new BadRequestException(
+                    "Bad request: some occurrences already have more participants than this capacity.");
+        }
+        for (Number sessionId : raised) {
+            this.eventPublisher.publishEvent(new SeatReleasedEvent(sessionId.longValue(), System.nanoTime()));
+        }
+        return series;
+    }
+
+    /** Occurrences without a teacher would be written with teacher_id = NULL. */
+    private static void requireTeacher(SessionSeries series) {
+        if (series.getTeacher() == null) {
+            throw new BadRequestException("Bad request: unknown teacher id.");
+        }
+    }
+
+    /**
+     * Cancels the upcoming occurrences, participations included, with bulk
+     * deletes; their waitlists go through the WAITLIST foreign key. Past
+     * occurrences stay as one-off sessions. Returns false when no series has
+     * this id.
+     */
+    @Transactional
+    public boolean delete(Long id) {
+        if (!this.sessionSeriesRepository.existsById(id)) {
+            return false;
+        }
+        Date now = new Date();
+        this.sessionRepository.deleteOccurrenceParticipationsFrom(id, now);
+        this.sessionRepository.deleteOccurrencesFrom(id, now);
+        this.sessionRepository.detachOccurrences(id);
+        this.sessionSeriesRepository.deleteById(id);
+        return true;
+    }
+
+    /**
+     * Dates of the occurrences of the series, in the server's time zone so
+     * that a class keeps its wall-clock time across daylight saving changes.
+     * Stops after limit dates.
+     */
+    static List<Date> occurrences(SessionSeries series, int limit) {
+        Set<LocalDate> exceptions = series.getExceptions() != null
+                ? series.getExceptions()
+                : Collections.<LocalDate>emptySet();
+        List<Date> dates = new ArrayList<>();
+        ZonedDateTime occurrence = series.getFirstDate().toInstant().atZone(ZoneId.systemDefault());
+        while (!occurrence.toLocalDate().isAfter(series.getUntil()) && dates.size() < limit) {
+            if (!exceptions.contains(occurrence.toLocalDate())) {
+                dates.add(Date.from(occurrence.toInstant()));
+            }
+            occurrence = occurrence.plusWeeks(series.getIntervalWeeks());
+        }
+        return dates;
+    }
+}
@@ -1,14 +1,39 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.LongList;
+import com.openclassrooms.starterjwt.dto.ParticipationResult;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionParticipantId;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,62 +42,351 @@ public class SessionService {
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final TeacherRepository teacherRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final EntityManager entityManager;
+
+    public enum Participation { BOOKED, WAITLISTED }
+
+    public SessionService(
+            SessionRepository sessionRepository,
+            UserRepository userRepository,
+            WaitlistRepository waitlistRepository,
+            TeacherRepository teacherRepository,
+            ApplicationEventPublisher eventPublisher,
+            EntityManager entityManager) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.teacherRepository = teacherRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
     }
 
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        checkCapacity(session);
+        return saveAndRecountSeats(session);
+    }
+
+    /**
+     * Two statements whatever the number of participants; waiters go with the
+     * session through the WAITLIST foreign key. Returns false when no session
+     * has this id.
+     */
+    @Transactional
+    public boolean delete(Long id) {
+        this.sessionRepository.deleteParticipationsBySessionId(id);
+        return this.sessionRepository.deleteSessionById(id) == 1;
     }
 
-    public void delete(Long id) {
-        this.sessionRepository.deleteById(id);
+    /**
+     * Reads every session in id order, one keyset page at a time, and hands
+     * each page to the consumer with its participant ids. The persistence
+     * context is cleared after each page, so memory does not grow with the
+     * table.
+     */
+    @Transactional(readOnly = true)
+    public void forEachSessionBatch(BiConsumer<List<Session>, Map<Long, List<Long>>> consumer) {
+        PageRequest page = PageRequest.of(0, SessionRepository.SCAN_PAGE_SIZE);
+        List<Session> batch = this.sessionRepository.findByIdGreaterThanOrderByIdAsc(0L, page);
+        while (!batch.isEmpty()) {
+            consumer.accept(batch, findParticipantIds(batch));
+            Long lastId = batch.get(batch.size() - 1).getId();
+            this.entityManager.clear();
+            if (batch.size() < SessionRepository.SCAN_PAGE_SIZE) {
+                break;
+            }
+            batch = this.sessionRepository.findByIdGreaterThanOrderByIdAsc(lastId, page);
+        }
     }
 
-    public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+    /**
+     * Up to {@code limit} sessions following the cursor in (date, id) order,
+     * from the first one when the cursor is null.
+     */
+    public List<Session> findPage(SessionCursor cursor, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return cursor == null
+                ? this.sessionRepository.findAllByOrderByDateAscIdAsc(page)
+                : this.sessionRepository.findPageAfter(cursor.getDate(), cursor.getId(), page);
+    }
+
+    /**
+     * Like findPage, restricted to the sessions matching every given filter.
+     * from and to are days in the server's time zone, both included.
+     */
+    public List<Session> search(LocalDate from, LocalDate to, Long teacherId, String keyword,
+                                SessionCursor cursor, int limit) {
+        ZoneId zone = ZoneId.systemDefault();
+        return this.sessionRepository.search(
+                from != null ? Date.from(from.atStartOfDay(zone).toInstant()) : null,
+                to != null ? Date.from(to.plusDays(1).atStartOfDay(zone).toInstant()) : null,
+                teacherId,
+                keyword,
+                cursor != null ? cursor.getDate() : null,
+                cursor != null ? cursor.getId() : null,
+                limit);
+    }
+
+    /**
+     * Participant ids of the given sessions, keyed by session id, read with
+     * one query over PARTICIPATE. Rows come ordered by session, so each list
+     * is filled in one pass into a primitive array.
+     */
+    public Map<Long, List<Long>> findParticipantIds(List<Session> sessions) {
+        if (sessions.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> sessionIds = sessions.stream().map(Session::getId).collect(Collectors.toList());
+
+        Map<Long, List<Long>> participantIds = new HashMap<>();
+        LongList.Builder userIds = new LongList.Builder();
+        Long currentSessionId = null;
+        for (SessionParticipantId row : this.sessionRepository.findParticipantIds(sessionIds)) {
+            Long sessionId = row.getSessionId().longValue();
+            if (!sessionId.equals(currentSessionId) && !userIds.isEmpty()) {
+                participantIds.put(currentSessionId, userIds.buildAndReset());
+            }
+            currentSessionId = sessionId;
+            userIds.add(row.getUserId().longValue());
+        }
+        if (!userIds.isEmpty()) {
+            participantIds.put(currentSessionId, userIds.buildAndReset());
+        }
+        return participantIds;
     }
 
     public Session getById(Long id) {
-        return this.sessionRepository.findById(id).orElse(null);
+        return this.sessionRepository.findWithUsersById(id).orElse(null);
     }
 
+    /**
+     * Replaces the session as a whole. Like patch, it locks the session row
+     * before rewriting its participants, and offers the seats it opens up,
+     * by removing participants or raising the capacity, to the waitlist.
+     */
+    @Transactional
     public Session update(Long id, Session session) {
+        Integer freeSeatsBefore = this.sessionRepository.lockFreeSeats(id);
+        if (freeSeatsBefore == null) {
+            throw new NotFoundException();
+        }
         session.setId(id);
-        return this.sessionRepository.save(session);
+        checkCapacity(session);
+        Session saved = saveAndRecountSeats(session);
+        if (freeSeats(saved) > freeSeatsBefore) {
+            this.eventPublisher.publishEvent(new SeatReleasedEvent(id, System.nanoTime()));
+        }
+        return saved;
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+    /**
+     * Applies only the fields present in the patch to the managed session,
+     * so that the dynamic UPDATE flushed at commit only lists the changed
+     * columns. PARTICIPATE is only written when the users are part of the
+     * patch, and then only for the rows that differ.
+     */
+    @Transactional
+    public Session patch(Long id, SessionPatchDto patch) {
+        boolean seatsChange = patch.has(SessionPatchDto.USERS) || patch.has(SessionPatchDto.CAPACITY);
+        // Bookings lock the session row first; so does a change of seats.
+        Integer freeSeatsBefore = seatsChange ? this.sessionRepository.lockFreeSeats(id) : null;
+        if (seatsChange && freeSeatsBefore == null) {
             throw new NotFoundException();
         }
+        Session session = this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+
+        if (patch.has(SessionPatchDto.NAME)) {
+            session.setName(required(patch.getName()));
+        }
+        if (patch.has(SessionPatchDto.DATE)) {
+            session.setDate(required(patch.getDate()));
+        }
+        if (patch.has(SessionPatchDto.DESCRIPTION)) {
+            session.setDescription(required(patch.getDescription()));
+        }
+        if (patch.has(SessionPatchDto.TEACHER_ID)) {
+            Teacher teacher = this.teacherRepository.findById(required(patch.getTeacher_id()))
+                    .orElseThrow(() -> new BadRequestException("Bad request: unknown teacher id."));
+            session.setTeacher(teacher);
+        }
+        if (patch.has(SessionPatchDto.CAPACITY)) {
+            session.setCapacity(patch.getCapacity());
+        }
+
+        if (patch.has(SessionPatchDto.USERS)) {
+            Set<Long> userIds = new LinkedHashSet<>(required(patch.getUsers()));
+            checkCapacity(session.getCapacity(), userIds.size());
+            if (!userIds.isEmpty() && this.userRepository.findAllById(userIds).size() < userIds.size()) {
+                throw new BadRequestException("Bad request: unknown user ids.");
+            }
+            if (this.sessionRepository.replaceParticipants(id, userIds) > 0) {
+                this.eventPublisher.publishEvent(new SeatReleasedEvent(id, System.nanoTime()));
+            }
+            session.setSeatsTaken(userIds.size());
+        } else if (patch.has(SessionPatchDto.CAPACITY)) {
+            checkCapacity(session.getCapacity(), session.getSeatsTaken());
+            // A raised or removed capacity opens seats to the waitlist.
+            if (freeSeats(session) > freeSeatsBefore) {
+                this.eventPublisher.publishEvent(new SeatReleasedEvent(id, System.nanoTime()));
+            }
+        }
+        return session;
+    }
+
+    private static <T> T required(T value) {
+        if (value == null) {
+            throw new BadRequestException();
+        }
+        return value;
+    }
+
+    private static void checkCapacity(Integer capacity, int participants) {
+        if (capacity != null && participants > capacity) {
+            throw new BadRequestException("Bad request: the participants exceed the session capacity.");
+        }
+    }
+
+    /** Same scale as lockFreeSeats: Integer.MAX_VALUE without a capacity. */
+    private static int freeSeats(Session session) {
+        if (session.getCapacity() == null) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(session.getCapacity() - session.getSeatsTaken(), 0);
+    }
+
+    private void checkCapacity(Session session) {
+        if (session.getUsers() != null) {
+            checkCapacity(session.getCapacity(), session.getUsers().size());
+        }
+    }
+
+    /**
+     * Saving the entity rewrites its participant list as a whole, so the seat
+     * counter is recomputed from PARTICIPATE and read back with the session.
+     */
+    private Session saveAndRecountSeats(Session session) {
+        Session saved = this.sessionRepository.save(session);
+        this.sessionRepository.recountSeats(saved.getId());
+        return this.sessionRepository.findWithUsersById(saved.getId()).orElse(saved);
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+    @Transactional
+    public void participate(Long id, Long userId) {
+        participate(id, userId, false);
+    }
+
+    /**
+     * Takes a seat with a guarded counter update, then adds the PARTICIPATE
+     * row with a single conditional insert. The seat update locks the session
+     * row first, so concurrent bookings queue on it instead of overbooking,
+     * and a failed insert rolls the seat back. The existence checks only run
+     * to tell the failure cases apart.
+     *
+     * When the session is full and {@code waitlist} is set, the user joins
+     * the end of its waitlist instead.
+     */
+    @Transactional
+    public Participation participate(Long id, Long userId, boolean waitlist) {
+        if (this.sessionRepository.reserveSeat(id) == 0) {
+            if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
+                throw new NotFoundException();
+            }
+            if (!waitlist) {
+                throw new BadRequestException("Bad request: this session is full.");
+            }
+            if (this.sessionRepository.countParticipation(id, userId) > 0
+                    || this.waitlistRepository.enqueue(id, userId) == 0) {
+                throw new BadRequestException();
+            }
+            // A seat freed while joining would otherwise wait for the next release.
+            this.eventPublisher.publishEvent(new SeatReleasedEvent(id, System.nanoTime()));
+            return Participation.WAITLISTED;
+        }
+
+        if (this.sessionRepository.insertParticipation(id, userId) == 0) {
+            if (!this.userRepository.existsById(userId)) {
+                throw new NotFoundException();
+            }
             throw new BadRequestException();
         }
+        return Participation.BOOKED;
+    }
+
+    /**
+     * Enrols every given user into every given session, with one lookup for
+     * all the users and, per session, one locked read of its seats and JDBC
+     * batches of PARTICIPATE inserts. Sessions are handled in id order so
+     * that concurrent bulk calls lock them in the same order. Users beyond
+     * the free seats are reported as SESSION_FULL, in request order.
+     */
+    @Transactional
+    public Map<Long, Map<Long, ParticipationResult>> participateInBulk(List<Long> sessionIds, List<Long> userIds) {
+        Set<Long> requestedUserIds = new LinkedHashSet<>(userIds);
+        Set<Long> knownUserIds = new HashSet<>();
+        for (User user : this.userRepository.findAllById(requestedUserIds)) {
+            knownUserIds.add(user.getId());
+        }
+
+        Map<Long, Map<Long, ParticipationResult>> results = new LinkedHashMap<>();
+        for (Long sessionId : new TreeSet<>(sessionIds)) {
+            Map<Long, ParticipationResult> sessionResults = new LinkedHashMap<>();
+            results.put(sessionId, sessionResults);
 
-        session.getUsers().add(user);
+            Integer freeSeats = this.sessionRepository.lockFreeSeats(sessionId);
+            if (freeSeats == null) {
+                for (Long userId : requestedUserIds) {
+                    sessionResults.put(userId, ParticipationResult.SESSION_NOT_FOUND);
+                }
+                continue;
+            }
 
-        this.sessionRepository.save(session);
+            Set<Long> participating = knownUserIds.isEmpty()
+                    ? Collections.emptySet()
+                    : this.sessionRepository.findParticipatingUserIds(sessionId, knownUserIds);
+            List<Long> booked = new ArrayList<>();
+            for (Long userId : requestedUserIds) {
+                ParticipationResult result;
+                if (!knownUserIds.contains(userId)) {
+                    result = ParticipationResult.USER_NOT_FOUND;
+                } else if (participating.contains(userId)) {
+                    result = ParticipationResult.ALREADY_PARTICIPATING;
+                } else if (booked.size() < freeSeats) {
+                    booked.add(userId);
+                    result = ParticipationResult.BOOKED;
+                } else {
+                    result = ParticipationResult.SESSION_FULL;
+                }
+                sessionResults.put(userId, result);
+            }
+            this.sessionRepository.insertParticipations(sessionId, booked);
+        }
+        return results;
     }
 
+    /**
+     * Same lock order as participate: the session row, then PARTICIPATE. A
+     * failed delete rolls the released seat back. A user still on the
+     * waitlist just leaves it.
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        if (this.waitlistRepository.dequeue(id, userId) == 1) {
+            return;
+        }
+
+        if (this.sessionRepository.releaseSeat(id) == 0) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+        if (this.sessionRepository.deleteParticipation(id, userId) == 0) {
             throw new BadRequestException();
         }
-
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
-
-        this.sessionRepository.save(session);
+        this.eventPublisher.publishEvent(new SeatReleasedEvent(id, System.nanoTime()));
     }
 }
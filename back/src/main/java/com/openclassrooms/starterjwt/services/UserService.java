@@ -2,21 +2,68 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenVersionRegistry;
+import com.openclassrooms.starterjwt.security.services.SessionTicketStore;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final SessionTicketStore sessionTicketStore;
+
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserService(
+            UserRepository userRepository,
+            SessionTicketStore sessionTicketStore,
+            TokenVersionRegistry tokenVersionRegistry,
+            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.sessionTicketStore = sessionTicketStore;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.eventPublisher = eventPublisher;
     }
 
-    public void delete(Long id) {
-        this.userRepository.deleteById(id);
+    /**
+     * Deletes the user only when the id belongs to the given email, without
+     * loading the account or its sessions. Returns false when nothing was
+     * deleted; {@link #existsById} then tells an unknown id from another
+     * user's. The seats the user held are offered to the waitlists of their
+     * sessions, and the JWTs already issued to the user stop being accepted.
+     */
+    @Transactional
+    public boolean delete(Long id, String email) {
+        List<Number> sessionIds = this.userRepository.findParticipatedSessionIds(id);
+        this.userRepository.releaseSeatsOf(id, email);
+        this.userRepository.deleteParticipationsOf(id, email);
+        if (this.userRepository.deleteByIdAndEmail(id, email) == 0) {
+            return false;
+        }
+        for (Number sessionId : sessionIds) {
+            this.eventPublisher.publishEvent(new SeatReleasedEvent(sessionId.longValue(), System.nanoTime()));
+        }
+        this.tokenVersionRegistry.invalidate(id);
+        this.sessionTicketStore.revokeUser(id);
+        return true;
+    }
+
+    public boolean existsById(Long id) {
+        return this.userRepository.existsById(id);
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
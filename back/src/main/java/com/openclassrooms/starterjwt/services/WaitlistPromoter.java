@@ -0,0 +1,173 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands released seats to the oldest waiters, on a single background thread
+ * so that cancellations return without waiting for it. Releases of the same
+ * session that arrive before its promotion starts are served together, and
+ * each batch of waiters is promoted in one transaction.
+ */
+@Component
+public class WaitlistPromoter {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistPromoter.class);
+
+    private final SessionRepository sessionRepository;
+
+    private final WaitlistRepository waitlistRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final long depthTtlMs;
+
+    // Last waitlist size read for the depth gauge, and when it was read.
+    private volatile long depth;
+
+    private volatile long depthReadAtMs;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("waitlist-promoter-"));
+
+    // Session id -> nanoTime of its earliest release not yet served.
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+
+    private final Timer promotionLag;
+
+    private final Counter promoted;
+
+    public WaitlistPromoter(
+            SessionRepository sessionRepository,
+            WaitlistRepository waitlistRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${oc.app.waitlistPromotionBatchSize:50}") int batchSize,
+            @Value("${oc.app.waitlistDepthTtlMs:15000}") long depthTtlMs) {
+        this.sessionRepository = sessionRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.depthTtlMs = depthTtlMs;
+
+        this.promotionLag = Timer.builder("session.waitlist.promotion.lag")
+                .description("Time from a seat being released to a waiter being booked into it")
+                .register(meterRegistry);
+        this.promoted = Counter.builder("session.waitlist.promoted")
+                .description("Waiters booked into a released seat")
+                .register(meterRegistry);
+        Gauge.builder("session.waitlist.depth", this, WaitlistPromoter::depth)
+                .description("Users waiting for a seat, all sessions together")
+                .register(meterRegistry);
+        Gauge.builder("session.waitlist.pending", pending, ConcurrentHashMap::size)
+                .description("Sessions with released seats not yet offered to the waitlist")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onSeatReleased(SeatReleasedEvent event) {
+        if (pending.putIfAbsent(event.getSessionId(), event.getReleasedAtNanos()) == null) {
+            executor.execute(() -> promote(event.getSessionId()));
+        }
+    }
+
+    /**
+     * Removing the session from pending before reading the waitlist means a
+     * release committed after this point schedules another pass.
+     */
+    void promote(Long sessionId) {
+        Long releasedAtNanos = pending.remove(sessionId);
+        if (releasedAtNanos == null) {
+            releasedAtNanos = System.nanoTime();
+        }
+        try {
+            Batch batch;
+            do {
+                batch = transactionTemplate.execute(status -> promoteBatch(sessionId));
+                long lagNanos = System.nanoTime() - releasedAtNanos;
+                for (int i = 0; i < batch.promoted; i++) {
+                    promotionLag.record(lagNanos, TimeUnit.NANOSECONDS);
+                }
+                promoted.increment(batch.promoted);
+            } while (batch.hasMore);
+        } catch (RuntimeException e) {
+            logger.error("Waitlist promotion failed for session {}", sessionId, e);
+        }
+    }
+
+    /**
+     * Each waiter is taken off the waitlist by id before being booked, once
+     * a seat is reserved for them. A waiter who left in the meantime is not
+     * deleted again, so they are not booked; one leaving now waits for this
+     * transaction on the row lock and then finds nothing to remove.
+     */
+    private Batch promoteBatch(Long sessionId) {
+        List<WaitlistEntry> waiters =
+                waitlistRepository.findBySessionIdOrderByIdAsc(sessionId, PageRequest.of(0, batchSize));
+
+        Batch batch = new Batch();
+        int served = 0;
+        for (WaitlistEntry waiter : waiters) {
+            if (sessionRepository.reserveSeat(sessionId) == 0) {
+                break;
+            }
+            served++;
+            if (waitlistRepository.dequeueById(waiter.getId()) == 1
+                    && sessionRepository.insertParticipation(sessionId, waiter.getUserId()) == 1) {
+                batch.promoted++;
+            } else {
+                // Left the waitlist, booked on their own or deleted: not a seat taker.
+                sessionRepository.releaseSeat(sessionId);
+            }
+        }
+        batch.hasMore = served == batchSize;
+        return batch;
+    }
+
+    /**
+     * The waitlist size, counted at most once per depthTtlMs however often
+     * the gauge is scraped. Concurrent scrapes may both count; that is rare
+     * and harmless.
+     */
+    double depth() {
+        long now = System.currentTimeMillis();
+        if (now - depthReadAtMs >= depthTtlMs) {
+            depth = waitlistRepository.count();
+            depthReadAtMs = now;
+        }
+        return depth;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class Batch {
+        int promoted;
+
+        boolean hasMore;
+    }
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector of the test profile. Only records the SQL
+ * prepared by the current thread inside {@link #record}, and otherwise lets
+ * every statement through untouched.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+  private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+  @Override
+  public String inspect(String sql) {
+    List<String> recorded = RECORDED.get();
+    if (recorded != null) {
+      recorded.add(sql);
+    }
+    return sql;
+  }
+
+  public static List<String> record(Callable<?> action) throws Exception {
+    List<String> recorded = new ArrayList<>();
+    RECORDED.set(recorded);
+    try {
+      action.call();
+    } finally {
+      RECORDED.remove();
+    }
+    return recorded;
+  }
+}
@@ -5,9 +5,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshTokenRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.platform.suite.api.SuiteDisplayName;
@@ -21,6 +30,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
@@ -162,4 +172,122 @@ public class AuthControllerIntegrationTest {
       assertThat(savedUser.isAdmin()).isFalse();
     }
   }
+
+  @Test
+  @DisplayName("Should rotate refresh tokens and reject them after logout")
+  void testRefreshAndLogout() throws Exception {
+    User user = new User();
+    user
+      .setEmail("refresh@studio.com")
+      .setPassword(passwordEncoder.encode("password"))
+      .setFirstName("John")
+      .setLastName("Doe")
+      .setAdmin(false);
+    userRepository.save(user);
+
+    LoginRequest loginRequest = new LoginRequest();
+    loginRequest.setEmail("refresh@studio.com");
+    loginRequest.setPassword("password");
+    String firstRefreshToken = objectMapper
+      .readTree(
+        post("/api/auth/login", loginRequest).getResponse().getContentAsString()
+      )
+      .get("refreshToken")
+      .asText();
+
+    MvcResult refreshed = post("/api/auth/refresh", refresh(firstRefreshToken));
+    assertThat(refreshed.getResponse().getStatus()).isEqualTo(200);
+    String secondRefreshToken = objectMapper
+      .readTree(refreshed.getResponse().getContentAsString())
+      .get("refreshToken")
+      .asText();
+    assertThat(secondRefreshToken).isNotEqualTo(firstRefreshToken);
+
+    assertThat(
+      post("/api/auth/refresh", refresh(firstRefreshToken))
+        .getResponse()
+        .getStatus()
+    )
+      .isEqualTo(401);
+
+    assertThat(
+      post("/api/auth/logout", refresh(secondRefreshToken))
+        .getResponse()
+        .getStatus()
+    )
+      .isEqualTo(200);
+    assertThat(
+      post("/api/auth/refresh", refresh(secondRefreshToken))
+        .getResponse()
+        .getStatus()
+    )
+      .isEqualTo(401);
+  }
+
+  @Test
+  @DisplayName("Should hand a new pair to only one of the requests reusing a refresh token")
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void testRefresh_ConcurrentReuse() throws Exception {
+    User user = new User();
+    user
+      .setEmail("reuse@studio.com")
+      .setPassword(passwordEncoder.encode("password"))
+      .setFirstName("John")
+      .setLastName("Doe")
+      .setAdmin(false);
+    userRepository.save(user);
+    LoginRequest loginRequest = new LoginRequest();
+    loginRequest.setEmail("reuse@studio.com");
+    loginRequest.setPassword("password");
+    String refreshToken = objectMapper
+      .readTree(
+        post("/api/auth/login", loginRequest).getResponse().getContentAsString()
+      )
+      .get("refreshToken")
+      .asText();
+
+    int requests = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(requests);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Integer> statuses = new ArrayList<>();
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < requests; i++) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            return post("/api/auth/refresh", refresh(refreshToken))
+              .getResponse()
+              .getStatus();
+          })
+        );
+      }
+      start.countDown();
+      for (Future<Integer> future : futures) {
+        statuses.add(future.get(60, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(statuses).containsOnly(200, 401);
+    assertThat(statuses).filteredOn(status -> status == 200).hasSize(1);
+  }
+
+  private RefreshTokenRequest refresh(String refreshToken) {
+    RefreshTokenRequest request = new RefreshTokenRequest();
+    request.setRefreshToken(refreshToken);
+    return request;
+  }
+
+  private MvcResult post(String url, Object body) throws Exception {
+    return mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .post(url)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(body))
+      )
+      .andReturn();
+  }
 }
@@ -3,22 +3,37 @@ package com.openclassrooms.starterjwt.controllers;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshTokenRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.AuthMode;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.RevokedTokenRegistry;
+import com.openclassrooms.starterjwt.security.services.LoginAttemptLimiter;
+import com.openclassrooms.starterjwt.security.services.SessionTicketStore;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import java.util.Date;
 
 import org.junit.platform.suite.api.SuiteDisplayName;
 
 import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.ArgumentCaptor;
@@ -26,10 +41,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @SuiteDisplayName("CONTROLLER")
@@ -48,6 +65,21 @@ class AuthControllerUnitTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private UserDetailsCache userDetailsCache;
+
+  @Mock
+  private LoginAttemptLimiter loginAttemptLimiter;
+
+  @Mock
+  private RevokedTokenRegistry revokedTokenRegistry;
+
+  @Mock
+  private UserDetailsServiceImpl userDetailsService;
+
+  @Mock
+  private SessionTicketStore sessionTicketStore;
+
   @InjectMocks
   private AuthController authController;
 
@@ -56,10 +88,18 @@ class AuthControllerUnitTest {
     MockitoAnnotations.openMocks(this);
   }
 
+  // Login stores the mocked authentication in the thread's security context,
+  // which would otherwise leak into the next test class run on this thread.
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
   @ParameterizedTest(name = "({index}) : {0} [{4}]")
   @CsvSource(
     {
       "Valid login, test@example.com, password, mockedJwtToken, 200, false",
+      "Valid admin login, admin@example.com, password, mockedJwtToken, 200, true",
       "Unknown user, unknown@example.com, wrongpassword, , 404, false",
     }
   )
@@ -94,12 +134,15 @@ class AuthControllerUnitTest {
       )
         .thenReturn(authentication);
       when(authentication.getPrincipal()).thenReturn(userDetails);
-      when(jwtUtils.generateJwtToken(authentication)).thenReturn(token);
+      when(jwtUtils.generateJwtToken(eq(userDetails), anyString()))
+        .thenReturn(token);
+      when(jwtUtils.generateRefreshToken(eq(userDetails), anyString()))
+        .thenReturn("refreshToken");
       when(userDetails.getUsername()).thenReturn(email);
       when(userDetails.getId()).thenReturn(1L);
       when(userDetails.getFirstName()).thenReturn("First");
       when(userDetails.getLastName()).thenReturn("Last");
-      when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+      when(userDetails.getAdmin()).thenReturn(isAdmin);
     } else {
       when(
         authenticationManager.authenticate(
@@ -116,7 +159,8 @@ class AuthControllerUnitTest {
 
     if (expectedStatus == 200) {
       ResponseEntity<?> response = authController.authenticateUser(
-        loginRequest
+        loginRequest,
+        new MockHttpServletRequest()
       );
       assertThat(response).isNotNull();
       assertThat(response.getStatusCodeValue()).isEqualTo(expectedStatus);
@@ -124,7 +168,10 @@ class AuthControllerUnitTest {
       JwtResponse jwtResponse = (JwtResponse) response.getBody();
       assertThat(jwtResponse).isNotNull();
       assertThat(jwtResponse.getToken()).isEqualTo(token);
+      assertThat(jwtResponse.getRefreshToken()).isEqualTo("refreshToken");
       assertThat(jwtResponse.getAdmin()).isEqualTo(isAdmin);
+      verify(userRepository, never()).findByEmail(anyString());
+      verify(loginAttemptLimiter).recordSuccess(email, "127.0.0.1", 0L);
     } else {
       when(
         authenticationManager.authenticate(
@@ -137,12 +184,173 @@ class AuthControllerUnitTest {
       assertThrows(
         BadCredentialsException.class,
         () -> {
-          authController.authenticateUser(loginRequest);
+          authController.authenticateUser(
+            loginRequest,
+            new MockHttpServletRequest()
+          );
         }
       );
+      verify(loginAttemptLimiter).checkAllowed(email, "127.0.0.1");
+      verify(loginAttemptLimiter, never())
+        .recordSuccess(anyString(), anyString(), anyLong());
     }
   }
 
+  @Test
+  @DisplayName("Should reject a throttled login before authenticating")
+  void testAuthenticateUser_Throttled() {
+    LoginRequest loginRequest = new LoginRequest();
+    loginRequest.setEmail("test@example.com");
+    loginRequest.setPassword("password");
+    doThrow(new TooManyRequestsException(60))
+      .when(loginAttemptLimiter)
+      .checkAllowed("test@example.com", "127.0.0.1");
+
+    assertThrows(
+      TooManyRequestsException.class,
+      () ->
+        authController.authenticateUser(
+          loginRequest,
+          new MockHttpServletRequest()
+        )
+    );
+    verify(authenticationManager, never()).authenticate(any());
+  }
+
+  @ParameterizedTest(name = "({index}) : {0} [{5}]")
+  @CsvSource(
+    {
+      "Valid refresh token, true, false, false, true, 200",
+      "Access token used as refresh token, false, false, false, true, 401",
+      "Refresh token already used, true, true, false, true, 401",
+      "Session logged out, true, false, true, true, 401",
+      "Refresh token used by a concurrent request, true, false, false, false, 401",
+    }
+  )
+  @DisplayName("Should handle Refresh scenario ")
+  void testRefreshToken(
+    String scenarioName,
+    boolean isRefreshToken,
+    boolean tokenRevoked,
+    boolean sessionRevoked,
+    boolean revokedByThisRequest,
+    int expectedStatus
+  ) {
+    Claims claims = mock(Claims.class);
+    Date expiration = new Date(System.currentTimeMillis() + 60000);
+    UserDetailsImpl userDetails = UserDetailsImpl
+      .builder()
+      .id(1L)
+      .username("test@example.com")
+      .build();
+    when(jwtUtils.parseJwtClaims("refreshToken")).thenReturn(claims);
+    when(jwtUtils.isRefreshToken(claims)).thenReturn(isRefreshToken);
+    when(jwtUtils.getSessionId(claims)).thenReturn("session");
+    when(claims.getId()).thenReturn("tokenId");
+    when(claims.getSubject()).thenReturn("test@example.com");
+    when(claims.getExpiration()).thenReturn(expiration);
+    when(revokedTokenRegistry.isRevoked("tokenId")).thenReturn(tokenRevoked);
+    when(revokedTokenRegistry.isRevoked("session")).thenReturn(sessionRevoked);
+    when(revokedTokenRegistry.revoke("tokenId", expiration.getTime()))
+      .thenReturn(revokedByThisRequest);
+    when(userDetailsService.loadUserByUsername("test@example.com"))
+      .thenReturn(userDetails);
+    when(jwtUtils.generateJwtToken(userDetails, "session"))
+      .thenReturn("newToken");
+    when(jwtUtils.generateRefreshToken(userDetails, "session"))
+      .thenReturn("newRefreshToken");
+
+    RefreshTokenRequest request = new RefreshTokenRequest();
+    request.setRefreshToken("refreshToken");
+    ResponseEntity<?> response = authController.refreshToken(request);
+
+    assertThat(response.getStatusCodeValue()).isEqualTo(expectedStatus);
+    if (expectedStatus == 200) {
+      JwtResponse jwtResponse = (JwtResponse) response.getBody();
+      assertThat(jwtResponse.getToken()).isEqualTo("newToken");
+      assertThat(jwtResponse.getRefreshToken()).isEqualTo("newRefreshToken");
+      verify(revokedTokenRegistry).revoke("tokenId", expiration.getTime());
+    } else {
+      verify(jwtUtils, never()).generateRefreshToken(any(), any());
+    }
+  }
+
+  @Test
+  @DisplayName("Should revoke the session of a valid refresh token on logout")
+  void testLogout() {
+    Claims claims = mock(Claims.class);
+    Date expiration = new Date(System.currentTimeMillis() + 60000);
+    when(jwtUtils.parseJwtClaims("refreshToken")).thenReturn(claims);
+    when(jwtUtils.isRefreshToken(claims)).thenReturn(true);
+    when(jwtUtils.getSessionId(claims)).thenReturn("session");
+    when(claims.getExpiration()).thenReturn(expiration);
+
+    RefreshTokenRequest request = new RefreshTokenRequest();
+    request.setRefreshToken("refreshToken");
+    ResponseEntity<?> response = authController.logout(request);
+
+    assertThat(response.getStatusCodeValue()).isEqualTo(200);
+    verify(revokedTokenRegistry).revoke("session", expiration.getTime());
+  }
+
+  @Test
+  @DisplayName("Should issue, rotate and revoke opaque tickets in TICKET mode")
+  void testTicketMode() {
+    AuthController ticketController = new AuthController(
+      authenticationManager,
+      passwordEncoder,
+      jwtUtils,
+      userRepository,
+      userDetailsCache,
+      loginAttemptLimiter,
+      revokedTokenRegistry,
+      userDetailsService,
+      sessionTicketStore,
+      AuthMode.TICKET
+    );
+    UserDetailsImpl userDetails = UserDetailsImpl
+      .builder()
+      .id(1L)
+      .username("test@example.com")
+      .build();
+    Authentication authentication = mock(Authentication.class);
+    when(authenticationManager.authenticate(any())).thenReturn(authentication);
+    when(authentication.getPrincipal()).thenReturn(userDetails);
+    when(sessionTicketStore.issue(userDetails))
+      .thenReturn("ticket", "nextTicket");
+    when(sessionTicketStore.revoke("ticket"))
+      .thenReturn(userDetails)
+      .thenReturn(null);
+
+    LoginRequest loginRequest = new LoginRequest();
+    loginRequest.setEmail("test@example.com");
+    loginRequest.setPassword("password");
+    JwtResponse login = (JwtResponse) ticketController
+      .authenticateUser(loginRequest, new MockHttpServletRequest())
+      .getBody();
+
+    assertThat(login.getToken()).isEqualTo("ticket");
+    assertThat(login.getRefreshToken()).isEqualTo("ticket");
+    verify(jwtUtils, never()).generateJwtToken(any(), any());
+
+    RefreshTokenRequest request = new RefreshTokenRequest();
+    request.setRefreshToken("ticket");
+    JwtResponse refreshed = (JwtResponse) ticketController
+      .refreshToken(request)
+      .getBody();
+
+    assertThat(refreshed.getToken()).isEqualTo("nextTicket");
+    assertThat(ticketController.refreshToken(request).getStatusCodeValue())
+      .isEqualTo(401);
+    verify(sessionTicketStore, times(2)).revoke("ticket");
+    verify(sessionTicketStore, times(2)).issue(userDetails);
+
+    request.setRefreshToken("nextTicket");
+    ticketController.logout(request);
+
+    verify(sessionTicketStore).revoke("nextTicket");
+  }
+
   @ParameterizedTest(name = "({index}) : {0} [{7}]")
   @CsvSource(
     {
@@ -192,6 +400,7 @@ class AuthControllerUnitTest {
       assertThat(savedUser.getLastName()).isEqualTo(lastName);
       assertThat(savedUser.getPassword()).isEqualTo(encodedPassword);
       assertThat(savedUser.isAdmin()).isFalse();
+      verify(userDetailsCache).evict(email);
     }
   }
 }
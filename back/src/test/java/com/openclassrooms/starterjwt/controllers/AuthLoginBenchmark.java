@@ -0,0 +1,102 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Latency distribution of POST /api/auth/login under concurrent logins,
+ * against the H2 test profile. SampleTime mode reports the p50/p90/p99
+ * percentiles per run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class AuthLoginBenchmark {
+
+  private static final String EMAIL = "bench@studio.com";
+  private static final String PASSWORD = "password";
+
+  private ConfigurableApplicationContext context;
+
+  private AuthController authController;
+
+  @Setup
+  public void setUp() {
+    context =
+      new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+        .profiles("test")
+        .properties("server.port=0", "spring.jpa.show-sql=false")
+        .initializers(applicationContext ->
+          applicationContext
+            .getBeanFactory()
+            .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter())
+        )
+        .run();
+
+    PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+    context
+      .getBean(UserRepository.class)
+      .save(
+        new User(EMAIL, "Bench", "Mark", passwordEncoder.encode(PASSWORD), false)
+      );
+    authController = context.getBean(AuthController.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  /** Keeps the test-only security configuration out of the scanned beans. */
+  static class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+
+    @Override
+    public boolean match(
+      MetadataReader metadataReader,
+      MetadataReaderFactory metadataReaderFactory
+    ) {
+      return metadataReader
+        .getAnnotationMetadata()
+        .hasAnnotation(TestConfiguration.class.getName());
+    }
+  }
+
+  @Benchmark
+  public ResponseEntity<?> login() {
+    LoginRequest loginRequest = new LoginRequest();
+    loginRequest.setEmail(EMAIL);
+    loginRequest.setPassword(PASSWORD);
+    return authController.authenticateUser(
+      loginRequest,
+      new MockHttpServletRequest()
+    );
+  }
+}
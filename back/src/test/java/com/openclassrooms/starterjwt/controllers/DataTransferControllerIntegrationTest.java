@@ -0,0 +1,205 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Not transactional: the export is written from another thread, which
+ * would not see rows left uncommitted by the test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SuiteDisplayName("CONTROLLER")
+@DisplayName("¤Integration tests for DataTransferController")
+public class DataTransferControllerIntegrationTest {
+
+  private static final UserDetailsImpl ADMIN = UserDetailsImpl
+    .builder()
+    .id(1L)
+    .username("yoga@studio.com")
+    .admin(true)
+    .password("password")
+    .build();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  // Ids far above those the generators hand out to the imported rows.
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+      "INSERT INTO TEACHERS (id, last_name, first_name) " +
+      "VALUES (1001, 'DELAHAYE', 'Margot'), (1002, 'THIERCELIN', 'Hélène')"
+    );
+    jdbcTemplate.update(
+      "INSERT INTO USERS (id, email, last_name, first_name, password, admin) " +
+      "VALUES (1001, 'yogi@studio.com', 'Yogi', 'Test', 'password', false)"
+    );
+    jdbcTemplate.update(
+      "INSERT INTO SESSIONS (id, name, description, date, teacher_id, capacity, seats_taken) " +
+      "VALUES (1000, 'Morning flow', 'Gentle, \"slow\" start, then a stretch.', '2030-01-07 08:30:00', 1001, 10, 1)"
+    );
+    jdbcTemplate.update(
+      "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1000, 1001)"
+    );
+  }
+
+  private String export(String format) throws Exception {
+    MvcResult started = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .get("/api/data/export")
+          .param("format", format)
+          .with(user(ADMIN))
+      )
+      .andReturn();
+    MvcResult result = mockMvc
+      .perform(MockMvcRequestBuilders.asyncDispatch(started))
+      .andReturn();
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    return result.getResponse().getContentAsString();
+  }
+
+  private MvcResult importData(String format, String body) throws Exception {
+    return mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .post("/api/data/import")
+          .param("format", format)
+          .content(body)
+          .with(user(ADMIN))
+      )
+      .andReturn();
+  }
+
+  private int count(String sql, Object... args) {
+    return jdbcTemplate.queryForObject(sql, Integer.class, args);
+  }
+
+  @Test
+  @DisplayName("Should refuse the export to users who are not admins")
+  @WithMockUser
+  void testExport_NotAdmin() throws Exception {
+    MvcResult result = mockMvc
+      .perform(MockMvcRequestBuilders.get("/api/data/export"))
+      .andReturn();
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(403);
+  }
+
+  @Test
+  @DisplayName("Should export teachers, then sessions, then participations, one per line")
+  void testExport_Ndjson() throws Exception {
+    List<JsonNode> records = new ArrayList<>();
+    for (String line : export("ndjson").split("\n")) {
+      records.add(objectMapper.readTree(line));
+    }
+
+    assertThat(records)
+      .extracting(record -> record.get("type").asText())
+      .containsExactly("teacher", "teacher", "session", "participation");
+    assertThat(records.get(0).get("lastName").asText()).isEqualTo("DELAHAYE");
+    assertThat(records.get(2).get("teacher_id").asLong()).isEqualTo(1001);
+    assertThat(records.get(3).get("user_id").asLong()).isEqualTo(1001);
+  }
+
+  @Test
+  @DisplayName("Should import its own CSV export under new ids")
+  void testImport_CsvRoundTrip() throws Exception {
+    String csv = export("csv");
+
+    MvcResult result = importData("csv", csv);
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    assertThat(
+      objectMapper.readValue(result.getResponse().getContentAsString(), Map.class)
+    )
+      .containsEntry("teachers", 2)
+      .containsEntry("sessions", 1)
+      .containsEntry("participations", 1);
+    Map<String, Object> copy = jdbcTemplate.queryForMap(
+      "SELECT s.id, s.description, s.seats_taken, t.id AS teacher_id, t.last_name " +
+      "FROM SESSIONS s JOIN TEACHERS t ON t.id = s.teacher_id WHERE s.id <> 1000"
+    );
+    assertThat(copy.get("DESCRIPTION"))
+      .isEqualTo("Gentle, \"slow\" start, then a stretch.");
+    assertThat(copy.get("SEATS_TAKEN")).isEqualTo(1);
+    assertThat(((Number) copy.get("TEACHER_ID")).longValue())
+      .isNotIn(1001L, 1002L);
+    assertThat(copy.get("LAST_NAME")).isEqualTo("DELAHAYE");
+    assertThat(
+      count(
+        "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ? AND user_id = 1001",
+        copy.get("ID")
+      )
+    )
+      .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should import nothing when a record points to an unknown session")
+  void testImport_UnknownReference() throws Exception {
+    String body =
+      "{\"type\":\"teacher\",\"id\":7,\"lastName\":\"NEW\",\"firstName\":\"Teacher\"}\n" +
+      "{\"type\":\"participation\",\"session_id\":42,\"user_id\":1001}\n";
+
+    MvcResult result = importData("ndjson", body);
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(400);
+    assertThat(count("SELECT COUNT(*) FROM TEACHERS")).isEqualTo(2);
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    delimiter = '|',
+    value = {
+      "Broken JSON | {\"type\":\"teacher\",\"id\":7,]}",
+      "Wrong field type | {\"type\":\"session\",\"id\":\"seven\"}",
+    }
+  )
+  @DisplayName("Should answer bad request, with the line, for a malformed record")
+  void testImport_MalformedRecord(String scenarioName, String line)
+    throws Exception {
+    String body =
+      "{\"type\":\"teacher\",\"id\":7,\"lastName\":\"NEW\",\"firstName\":\"Teacher\"}\n" +
+      line +
+      "\n";
+
+    MvcResult result = importData("ndjson", body);
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(400);
+    assertThat(result.getResolvedException()).hasMessageContaining("line 2");
+    assertThat(count("SELECT COUNT(*) FROM TEACHERS")).isEqualTo(2);
+  }
+}
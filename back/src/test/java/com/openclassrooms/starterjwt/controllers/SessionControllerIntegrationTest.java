@@ -1,16 +1,31 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.config.RecordingStatementInspector;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.platform.suite.api.SuiteDisplayName;
@@ -21,10 +36,13 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 
 @Transactional
 @SpringBootTest
@@ -41,9 +59,24 @@ public class SessionControllerIntegrationTest {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private TeacherRepository teacherRepository;
+
+  @Autowired
+  private SessionService sessionService;
+
   @Autowired
   private MockMvc mockMvc;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  // Id of a teacher saved by setUp, given in the scenarios as "teacher".
+  private Long knownTeacherId;
+
   @ParameterizedTest(name = "({index}) : {0} [{3}]")
   @CsvSource(
     {
@@ -92,11 +125,12 @@ public class SessionControllerIntegrationTest {
   @ParameterizedTest(name = "({index}) : {0} [{5}]")
   @CsvSource(
     {
-      "Regular case : Successfully create a session, session 1, my description,2012-01-01, 5, 200",
-      "Successfully create session without name, , my description,2012-01-01, 5, 200",
-      "Successfully create session without description, session 1, ,2012-01-01, 5, 200",
-      "Fail to create session : missing date, session 1, my description, , 5, 400",
+      "Regular case : Successfully create a session, session 1, my description,2012-01-01, teacher, 200",
+      "Successfully create session without name, , my description,2012-01-01, teacher, 200",
+      "Successfully create session without description, session 1, ,2012-01-01, teacher, 200",
+      "Fail to create session : missing date, session 1, my description, , teacher, 400",
       "Fail to create session : missing teacher, session 1, my description,2012-01-01, , 400",
+      "Fail to create session : unknown teacher, session 1, my description,2012-01-01, 999, 400",
     }
     // TO DO : creation success logic ?
 
@@ -116,7 +150,7 @@ public class SessionControllerIntegrationTest {
       name,
       description,
       date,
-      teacherId
+      resolveTeacherId(teacherId)
     );
 
     MvcResult result = mockMvc
@@ -136,14 +170,14 @@ public class SessionControllerIntegrationTest {
   @ParameterizedTest(name = "({index}) : {0} [{6}]")
   @CsvSource(
     {
-      "Successfully update session id#1, 1, session updated, updated descr, 5, 2012-01-01, 200",
-      "Successfully update session without name, 1, , updated description, 5, 2012-01-01, 200",
-      "Successfully update session without description, 1, session updated, , 5, 2012-01-01, 200",
-      "Fail to update session :missing date, 1, session updated, updated descr, 5, , 400",
+      "Successfully update session id#1, 1, session updated, updated descr, teacher, 2012-01-01, 200",
+      "Successfully update session without name, 1, , updated description, teacher, 2012-01-01, 200",
+      "Successfully update session without description, 1, session updated, , teacher, 2012-01-01, 200",
+      "Fail to update session :missing date, 1, session updated, updated descr, teacher, , 400",
       "Fail to update session :Invalid teacher id, 1, session updated, updated descr, invalid, 2012-01-01, 400",
-      //"Session not found, 999, session updated, updated descr, 5, 2012-01-01, 404", //->200 ?
+      "Fail to update session :Unknown teacher id, 1, session updated, updated descr, 999, 2012-01-01, 400",
+      "Session not found, 999, session updated, updated descr, teacher, 2012-01-01, 404",
     }
-    //TO DO : 404 logic ?
   )
   @DisplayName("Should handle Update scenario ")
   @WithMockUser
@@ -158,11 +192,10 @@ public class SessionControllerIntegrationTest {
   ) throws Exception {
     if ("1".equals(id)) {
       Session session = new Session();
-      session.setId(1L);
       session.setName("Original Session");
       session.setDescription("Original Description");
       session.setDate(new Date());
-      sessionRepository.save(session);
+      id = sessionRepository.save(session).getId().toString();
     }
 
     String payload = String.format(
@@ -170,7 +203,7 @@ public class SessionControllerIntegrationTest {
       name,
       description,
       date,
-      teacherId
+      resolveTeacherId(teacherId)
     );
 
     MvcResult result = mockMvc
@@ -191,8 +224,17 @@ public class SessionControllerIntegrationTest {
     }
   }
 
+  private String resolveTeacherId(String teacherId) {
+    return "teacher".equals(teacherId) ? knownTeacherId.toString() : teacherId;
+  }
+
   @BeforeEach
   void setUp() {
+    knownTeacherId =
+      teacherRepository
+        .save(new Teacher().setFirstName("Margot").setLastName("DELAHAYE"))
+        .getId();
+
     User existingUser = new User();
     existingUser.setEmail("existing_user@example.com");
     existingUser.setFirstName("Existing");
@@ -274,4 +316,440 @@ public class SessionControllerIntegrationTest {
 
     assertThat(status).isEqualTo(expectedStatus);
   }
+
+  @Test
+  @DisplayName("Should accept a booking once and a cancellation once")
+  @WithMockUser
+  void testParticipate_RejectsRepeatedCalls() throws Exception {
+    Long sessionId = sessionRepository.findAll().get(0).getId();
+    Long userId = userRepository
+      .findByEmail("new_user@example.com")
+      .get()
+      .getId();
+    String url = "/api/session/" + sessionId + "/participate/" + userId;
+
+    assertThat(statusOf(MockMvcRequestBuilders.post(url))).isEqualTo(200);
+    assertThat(statusOf(MockMvcRequestBuilders.post(url))).isEqualTo(400);
+    assertThat(
+      sessionRepository.findWithUsersById(sessionId).get().getUsers()
+    )
+      .extracting(User::getId)
+      .contains(userId)
+      .hasSize(2);
+
+    assertThat(statusOf(MockMvcRequestBuilders.delete(url))).isEqualTo(200);
+    assertThat(statusOf(MockMvcRequestBuilders.delete(url))).isEqualTo(400);
+    assertThat(
+      sessionRepository.findWithUsersById(sessionId).get().getUsers()
+    )
+      .extracting(User::getId)
+      .doesNotContain(userId)
+      .hasSize(1);
+  }
+
+  @Test
+  @DisplayName("Should delete a session with participants, then answer 404")
+  @WithMockUser
+  void testDelete_SessionWithParticipants() throws Exception {
+    Long sessionId = sessionRepository.findAll().get(0).getId();
+    String url = "/api/session/" + sessionId;
+
+    assertThat(statusOf(MockMvcRequestBuilders.delete(url))).isEqualTo(200);
+    assertThat(sessionRepository.findById(sessionId)).isEmpty();
+    Number participations = (Number) entityManager
+      .createNativeQuery(
+        "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :id"
+      )
+      .setParameter("id", sessionId)
+      .getSingleResult();
+    assertThat(participations.intValue()).isZero();
+    assertThat(userRepository.findByEmail("existing_user@example.com"))
+      .isPresent();
+
+    assertThat(statusOf(MockMvcRequestBuilders.delete(url))).isEqualTo(404);
+  }
+
+  @Test
+  @DisplayName("Should enrol a group in one call and report each outcome")
+  @WithMockUser
+  void testParticipateInBulk() throws Exception {
+    Long sessionId = sessionRepository.findAll().get(0).getId();
+    Long existingUserId = userRepository
+      .findByEmail("existing_user@example.com")
+      .get()
+      .getId();
+    Long newUserId = userRepository
+      .findByEmail("new_user@example.com")
+      .get()
+      .getId();
+
+    MvcResult result = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .post("/api/session/participate")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(
+            "{\"sessionIds\":[" +
+            sessionId +
+            ",999],\"userIds\":[" +
+            existingUserId +
+            "," +
+            newUserId +
+            ",9999]}"
+          )
+      )
+      .andReturn();
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    JsonNode body = objectMapper.readTree(
+      result.getResponse().getContentAsString()
+    );
+    JsonNode booked = body.get(String.valueOf(sessionId));
+    assertThat(booked.get(String.valueOf(existingUserId)).asText())
+      .isEqualTo("ALREADY_PARTICIPATING");
+    assertThat(booked.get(String.valueOf(newUserId)).asText())
+      .isEqualTo("BOOKED");
+    assertThat(booked.get("9999").asText()).isEqualTo("USER_NOT_FOUND");
+    assertThat(body.get("999").get("9999").asText())
+      .isEqualTo("SESSION_NOT_FOUND");
+    assertThat(
+      sessionService
+        .findParticipantIds(sessionRepository.findAll())
+        .get(sessionId)
+    )
+      .containsExactlyInAnyOrder(existingUserId, newUserId);
+  }
+
+  @Test
+  @DisplayName("Should reject a bulk enrolment without users")
+  @WithMockUser
+  void testParticipateInBulk_EmptyUsers() throws Exception {
+    assertThat(
+      statusOf(
+        MockMvcRequestBuilders
+          .post("/api/session/participate")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("{\"sessionIds\":[1],\"userIds\":[]}")
+      )
+    )
+      .isEqualTo(400);
+  }
+
+  @Test
+  @DisplayName("Should only update the patched columns and leave participants alone")
+  @WithMockUser
+  void testPatch_OnlyChangedColumns() throws Exception {
+    Session session = sessionRepository.findAll().get(0);
+    entityManager.flush();
+
+    List<String> statements = RecordingStatementInspector.record(() -> {
+      mockMvc
+        .perform(
+          MockMvcRequestBuilders
+            .patch("/api/session/" + session.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Renamed\"}")
+        )
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Renamed"))
+        .andExpect(
+          jsonPath("$.description").value("Session to test participation.")
+        );
+      entityManager.flush();
+      return null;
+    });
+
+    List<String> updates = statements
+      .stream()
+      .filter(sql -> sql.toLowerCase().startsWith("update"))
+      .collect(Collectors.toList());
+    assertThat(updates).hasSize(1);
+    assertThat(updates.get(0).toLowerCase())
+      .contains("name=?")
+      .doesNotContain("description")
+      .doesNotContain("teacher_id");
+    assertThat(statements)
+      .noneMatch(sql -> sql.toLowerCase().contains("participate"));
+  }
+
+  @Test
+  @DisplayName("Should replace the participants only when users are patched")
+  @WithMockUser
+  void testPatch_Users() throws Exception {
+    Long sessionId = sessionRepository.findAll().get(0).getId();
+    Long newUserId = userRepository
+      .findByEmail("new_user@example.com")
+      .get()
+      .getId();
+
+    mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .patch("/api/session/" + sessionId)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("{\"users\": [" + newUserId + "]}")
+      )
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.seatsTaken").value(1));
+
+    assertThat(
+      sessionService
+        .findParticipantIds(sessionRepository.findAll())
+        .get(sessionId)
+    )
+      .containsExactly(newUserId);
+
+    assertThat(
+      statusOf(
+        MockMvcRequestBuilders
+          .patch("/api/session/" + sessionId)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("{\"name\": null}")
+      )
+    )
+      .isEqualTo(400);
+    assertThat(
+      statusOf(
+        MockMvcRequestBuilders
+          .patch("/api/session/999")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("{\"name\": \"Renamed\"}")
+      )
+    )
+      .isEqualTo(404);
+  }
+
+  @ParameterizedTest(name = "({index}) : {0} [{2}]")
+  @CsvSource(
+    delimiter = '|',
+    value = {
+      "Blank name | {\"name\": \"  \"} | 400",
+      "Null name | {\"name\": null} | 400",
+      "Null date | {\"date\": null} | 400",
+      "Null description | {\"description\": null} | 400",
+      "Empty description | {\"description\": \"\"} | 200",
+      "Required fields left out | {\"capacity\": 5} | 200",
+    }
+  )
+  @DisplayName("Should only reject the required fields sent null or blank")
+  @WithMockUser
+  void testPatch_RequiredFields(
+    String scenarioName,
+    String payload,
+    int expectedStatus
+  ) throws Exception {
+    Long sessionId = sessionRepository.findAll().get(0).getId();
+
+    MvcResult result = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .patch("/api/session/" + sessionId)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(payload)
+      )
+      .andReturn();
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(expectedStatus);
+    if (expectedStatus == 400) {
+      assertThat(result.getResolvedException())
+        .isInstanceOf(MethodArgumentNotValidException.class);
+    }
+  }
+
+  private int statusOf(MockHttpServletRequestBuilder request)
+    throws Exception {
+    return mockMvc.perform(request).andReturn().getResponse().getStatus();
+  }
+
+  @Test
+  @DisplayName("Should walk every session once, page by page, in date order")
+  @WithMockUser
+  void testFindAll_KeysetPages() throws Exception {
+    Date sameDay = new Date(1700000000000L);
+    for (int i = 0; i < 5; i++) {
+      sessionRepository.save(
+        new Session()
+          .setName("Session " + i)
+          .setDescription("description")
+          .setDate(i < 3 ? sameDay : new Date(sameDay.getTime() - i * 1000L))
+      );
+    }
+
+    List<String> names = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+        .get("/api/session")
+        .param("size", "2");
+      if (cursor != null) {
+        request.param("cursor", cursor);
+      }
+      JsonNode page = objectMapper.readTree(
+        mockMvc.perform(request).andReturn().getResponse().getContentAsString()
+      );
+      page.get("items").forEach(item -> names.add(item.get("name").asText()));
+      cursor = page.get("nextCursor").isNull()
+        ? null
+        : page.get("nextCursor").asText();
+      pages++;
+    } while (cursor != null);
+
+    // Five sessions in 2023 followed by the one saved in setUp, dated now.
+    assertThat(pages).isEqualTo(3);
+    assertThat(names)
+      .containsExactly(
+        "Session 4",
+        "Session 3",
+        "Session 0",
+        "Session 1",
+        "Session 2",
+        "Session with Participants"
+      );
+  }
+
+  private Session searchable(
+    String name,
+    String description,
+    Teacher teacher,
+    String dateTime
+  ) {
+    return sessionRepository.save(
+      new Session()
+        .setName(name)
+        .setDescription(description)
+        .setTeacher(teacher)
+        .setDate(
+          Date.from(
+            LocalDateTime.parse(dateTime).atZone(ZoneId.systemDefault()).toInstant()
+          )
+        )
+    );
+  }
+
+  private JsonNode search(MockHttpServletRequestBuilder request)
+    throws Exception {
+    MvcResult result = mockMvc.perform(request).andReturn();
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    return objectMapper.readTree(result.getResponse().getContentAsString());
+  }
+
+  @Test
+  @DisplayName("Should page through the sessions of a teacher, a month and a keyword")
+  @WithMockUser
+  void testSearch_AllFiltersPaged() throws Exception {
+    Teacher margot = teacherRepository.save(
+      new Teacher().setFirstName("Margot").setLastName("DELAHAYE")
+    );
+    Teacher helene = teacherRepository.save(
+      new Teacher().setFirstName("Hélène").setLastName("THIERCELIN")
+    );
+    searchable("Morning flow", "Wake up.", margot, "2030-03-04T09:00");
+    searchable("Evening class", "Slow vinyasa FLOW.", margot, "2030-03-05T19:00");
+    searchable("Morning flow", "Wake up.", helene, "2030-03-06T09:00");
+    searchable("Power yoga", "Strong.", margot, "2030-03-07T12:00");
+    searchable("Morning flow", "Wake up.", margot, "2030-04-01T09:00");
+
+    List<String> found = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+        .get("/api/session/search")
+        .param("teacher_id", margot.getId().toString())
+        .param("from", "2030-03-01")
+        .param("to", "2030-03-31")
+        .param("q", "flow")
+        .param("size", "1");
+      if (cursor != null) {
+        request.param("cursor", cursor);
+      }
+      JsonNode page = search(request);
+      page.get("items").forEach(item -> found.add(item.get("name").asText()));
+      cursor = page.get("nextCursor").isNull()
+        ? null
+        : page.get("nextCursor").asText();
+      pages++;
+    } while (cursor != null);
+
+    // Neither the other teacher, the other month nor "Power yoga".
+    assertThat(pages).isEqualTo(2);
+    assertThat(found).containsExactly("Morning flow", "Evening class");
+  }
+
+  @ParameterizedTest(name = "({index}) : q={0}")
+  @CsvSource(
+    {
+      "evening vinyasa, 1",
+      "VINYASA, 1",
+      "morning vinyasa, 0",
+      "'100%_', 0",
+      "'', 2",
+    }
+  )
+  @DisplayName("Should require every word of the keyword in the name or the description")
+  @WithMockUser
+  void testSearch_Keyword(String keyword, int expected) throws Exception {
+    searchable("Evening class", "Slow vinyasa.", null, "2030-03-05T19:00");
+    searchable("Morning flow", "Wake up.", null, "2030-03-06T09:00");
+
+    JsonNode page = search(
+      MockMvcRequestBuilders
+        .get("/api/session/search")
+        .param("q", keyword)
+        .param("from", "2030-01-01")
+    );
+
+    assertThat(page.get("items")).hasSize(expected);
+  }
+
+  @Test
+  @DisplayName("Should reject a date that is not an ISO day")
+  @WithMockUser
+  void testSearch_BadDate() throws Exception {
+    assertThat(
+      statusOf(
+        MockMvcRequestBuilders.get("/api/session/search").param("from", "03/01/2030")
+      )
+    )
+      .isEqualTo(400);
+  }
+
+  @ParameterizedTest(name = "({index}) : {0} sessions")
+  @CsvSource({ "3", "12" })
+  @DisplayName("Should list sessions with a constant number of statements")
+  @WithMockUser
+  void testFindAll_ConstantStatementCount(int sessionCount) throws Exception {
+    List<User> users = userRepository.findAll();
+    for (int i = 0; i < sessionCount; i++) {
+      sessionRepository.save(
+        new Session()
+          .setName("Session " + i)
+          .setDescription("description")
+          .setDate(new Date())
+          .setUsers(new ArrayList<>(users))
+      );
+    }
+    // The list is written from another thread, which only sees committed rows.
+    TestTransaction.flagForCommit();
+    TestTransaction.end();
+    Statistics statistics = entityManager
+      .getEntityManagerFactory()
+      .unwrap(SessionFactory.class)
+      .getStatistics();
+    statistics.clear();
+
+    MvcResult started = mockMvc
+      .perform(MockMvcRequestBuilders.get("/api/session"))
+      .andReturn();
+    MvcResult result = mockMvc
+      .perform(MockMvcRequestBuilders.asyncDispatch(started))
+      .andReturn();
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    assertThat(objectMapper.readTree(result.getResponse().getContentAsString()))
+      .hasSize(sessionCount + 1);
+    // One statement for the sessions, one for all their participant ids.
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+  }
 }
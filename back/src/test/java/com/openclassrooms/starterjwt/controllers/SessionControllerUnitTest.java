@@ -1,19 +1,35 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.ParticipationResult;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.BulkParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionService.Participation;
 
 import org.junit.platform.suite.api.SuiteDisplayName;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -22,7 +38,9 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @SuiteDisplayName("CONTROLLER")
 @DisplayName("Unit tests for SessionController")
@@ -34,6 +52,9 @@ class SessionControllerUnitTest {
   @Mock
   private SessionMapper sessionMapper;
 
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
   @InjectMocks
   private SessionController sessionController;
 
@@ -43,22 +64,102 @@ class SessionControllerUnitTest {
   }
 
   @Test
-  @DisplayName("Should return all sessions")
-  void testFindAll() {
-    List<Session> sessions = Arrays.asList(new Session(), new Session());
-    List<SessionDto> sessionDtos = Arrays.asList(
-      new SessionDto(),
-      new SessionDto()
-    );
+  @DisplayName("Should stream all sessions as one JSON array, batch after batch")
+  void testFindAll() throws Exception {
+    List<Session> firstBatch = Arrays.asList(new Session(), new Session());
+    List<Session> secondBatch = Arrays.asList(new Session());
+    Map<Long, List<Long>> participantIds = Map.of(1L, List.of(10L));
+    doAnswer(invocation -> {
+        BiConsumer<List<Session>, Map<Long, List<Long>>> consumer =
+          invocation.getArgument(0);
+        consumer.accept(firstBatch, participantIds);
+        consumer.accept(secondBatch, Map.of());
+        return null;
+      })
+      .when(sessionService)
+      .forEachSessionBatch(any());
+    SessionDto first = new SessionDto();
+    first.setName("first");
+    SessionDto second = new SessionDto();
+    second.setName("second");
+    SessionDto third = new SessionDto();
+    third.setName("third");
+    when(sessionMapper.toDto(firstBatch, participantIds))
+      .thenReturn(Arrays.asList(first, second));
+    when(sessionMapper.toDto(secondBatch, Map.of()))
+      .thenReturn(Arrays.asList(third));
+
+    ResponseEntity<StreamingResponseBody> response = sessionController.findAll();
+    AtomicBoolean closed = new AtomicBoolean();
+    ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    };
+    response.getBody().writeTo(out);
 
-    when(sessionService.findAll()).thenReturn(sessions);
-    when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+    assertThat(response.getStatusCodeValue()).isEqualTo(200);
+    assertThat(objectMapper.readTree(out.toByteArray()))
+      .extracting(session -> session.get("name").asText())
+      .containsExactly("first", "second", "third");
+    assertThat(closed).isFalse();
+  }
 
-    ResponseEntity<?> response = sessionController.findAll();
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    {
+      "Full page with a next one, 2, 3, true",
+      "Last page, 2, 2, false",
+    }
+  )
+  @DisplayName("Should return a page of sessions and the next cursor scenario ")
+  void testFindAll_Paged(
+    String scenarioName,
+    int size,
+    int found,
+    boolean hasNext
+  ) {
+    List<Session> sessions = new ArrayList<>();
+    for (long id = 1; id <= found; id++) {
+      sessions.add(new Session().setId(id).setDate(new Date(id * 1000)));
+    }
+    SessionCursor cursor = new SessionCursor(new Date(0), 0L);
+    when(sessionService.findPage(cursor, size + 1)).thenReturn(sessions);
+    when(sessionMapper.toDto(anyList(), any()))
+      .thenReturn(Arrays.asList(new SessionDto()));
+
+    ResponseEntity<?> response = sessionController.findPage(
+      cursor.encode(),
+      size
+    );
 
-    assertThat(response).isNotNull();
     assertThat(response.getStatusCodeValue()).isEqualTo(200);
-    assertThat(response.getBody()).isEqualTo(sessionDtos);
+    SessionPageDto page = (SessionPageDto) response.getBody();
+    if (hasNext) {
+      assertThat(SessionCursor.decode(page.getNextCursor()))
+        .isEqualTo(new SessionCursor(new Date(2000), 2L));
+      verify(sessionService).findParticipantIds(sessions.subList(0, size));
+    } else {
+      assertThat(page.getNextCursor()).isNull();
+    }
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource({ "Zero size, 0", "Size over the maximum, 101" })
+  @DisplayName("Should reject an out of range page size scenario ")
+  void testFindAll_InvalidSize(String scenarioName, int size) {
+    ResponseEntity<?> response = sessionController.findPage(null, size);
+
+    assertThat(response.getStatusCodeValue()).isEqualTo(400);
+    verify(sessionService, never()).findPage(any(), anyInt());
+  }
+
+  @Test
+  @DisplayName("Should reject a cursor that was not issued by the API")
+  void testFindAll_InvalidCursor() {
+    assertThatThrownBy(() -> sessionController.findPage("not-a-cursor", 10))
+      .isInstanceOf(BadRequestException.class);
   }
 
   @ParameterizedTest(name = "({index}) : {0} [{2}]")
@@ -204,20 +305,15 @@ class SessionControllerUnitTest {
     String inputId,
     int expectedStatus
   ) {
-    Session existingSession = new Session();
-    existingSession.setId(1L);
-
     if (!"invalid".equals(inputId)) {
-      when(sessionService.getById(Long.valueOf(inputId)))
-        .thenReturn(expectedStatus == 200 ? existingSession : null);
-      if (expectedStatus == 200) {
-        doNothing().when(sessionService).delete(Long.valueOf(inputId));
-      }
+      when(sessionService.delete(Long.valueOf(inputId)))
+        .thenReturn(expectedStatus == 200);
     }
 
     ResponseEntity<?> response = sessionController.save(inputId);
 
     assertThat(response.getStatusCodeValue()).isEqualTo(expectedStatus);
+    verify(sessionService, never()).getById(any());
   }
 
   @ParameterizedTest(name = "({index}) : {0} [{3}]")
@@ -237,19 +333,88 @@ class SessionControllerUnitTest {
     int expectedStatus
   ) {
     if (!"invalid".equals(sessionId) && !"invalid".equals(userId)) {
-      doNothing()
-        .when(sessionService)
-        .participate(Long.parseLong(sessionId), Long.parseLong(userId));
+      when(
+        sessionService.participate(
+          Long.parseLong(sessionId),
+          Long.parseLong(userId),
+          false
+        )
+      )
+        .thenReturn(Participation.BOOKED);
     }
 
     ResponseEntity<?> response = sessionController.participate(
       sessionId,
-      userId
+      userId,
+      false
     );
 
     assertThat(response.getStatusCodeValue()).isEqualTo(expectedStatus);
   }
 
+  @ParameterizedTest(name = "({index}) : {0} [{2}]")
+  @CsvSource(
+    {
+      "Regular case : patch the name, 1, 200",
+      "Fail to patch : invalid session id, invalid, 400",
+    }
+  )
+  @DisplayName("Should handle different Patch scenario ")
+  void testPatchScenarios(String scenarioName, String id, int expectedStatus) {
+    SessionPatchDto patch = new SessionPatchDto();
+    patch.setName("Renamed");
+    Session serviceResponse = new Session();
+    serviceResponse.setId(1L);
+    SessionDto mappedResponse = new SessionDto();
+    mappedResponse.setId(1L);
+    when(sessionService.patch(1L, patch)).thenReturn(serviceResponse);
+    when(sessionMapper.toDto(serviceResponse)).thenReturn(mappedResponse);
+
+    ResponseEntity<?> response = sessionController.patch(id, patch);
+
+    assertThat(response.getStatusCodeValue()).isEqualTo(expectedStatus);
+    if (expectedStatus == 200) {
+      assertThat(response.getBody()).isEqualTo(mappedResponse);
+    }
+  }
+
+  @Test
+  @DisplayName("Should return the bulk enrolment outcomes")
+  void testParticipateInBulk() {
+    BulkParticipationRequest request = new BulkParticipationRequest();
+    request.setSessionIds(List.of(1L));
+    request.setUserIds(List.of(2L, 3L));
+    Map<Long, Map<Long, ParticipationResult>> outcomes = Map.of(
+      1L,
+      Map.of(
+        2L,
+        ParticipationResult.BOOKED,
+        3L,
+        ParticipationResult.SESSION_FULL
+      )
+    );
+    when(sessionService.participateInBulk(List.of(1L), List.of(2L, 3L)))
+      .thenReturn(outcomes);
+
+    ResponseEntity<?> response = sessionController.participateInBulk(request);
+
+    assertThat(response.getStatusCodeValue()).isEqualTo(200);
+    assertThat(response.getBody()).isEqualTo(outcomes);
+  }
+
+  @Test
+  @DisplayName("Should answer 202 when the user joins the waitlist")
+  void testParticipate_Waitlisted() {
+    when(sessionService.participate(1L, 2L, true))
+      .thenReturn(Participation.WAITLISTED);
+
+    ResponseEntity<?> response = sessionController.participate("1", "2", true);
+
+    assertThat(response.getStatusCodeValue()).isEqualTo(202);
+    assertThat(((MessageResponse) response.getBody()).getMessage())
+      .isEqualTo("Added to the waitlist.");
+  }
+
   @ParameterizedTest(name = "({index}) : {0} [{3}]")
   @CsvSource(
     {
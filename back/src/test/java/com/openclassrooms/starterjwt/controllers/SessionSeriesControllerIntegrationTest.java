@@ -0,0 +1,290 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SuiteDisplayName("CONTROLLER")
+@DisplayName("¤Integration tests for SessionSeriesController")
+public class SessionSeriesControllerIntegrationTest {
+
+  private static final long WEEK_MS = 7L * 24 * 60 * 60 * 1000;
+
+  @Autowired
+  private SessionSeriesRepository sessionSeriesRepository;
+
+  @Autowired
+  private TeacherRepository teacherRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private Long teacherId;
+
+  @BeforeEach
+  void setUp() {
+    Teacher teacher = new Teacher();
+    teacher.setFirstName("Margot");
+    teacher.setLastName("Delahaye");
+    teacherId = teacherRepository.save(teacher).getId();
+  }
+
+  private String payload(
+    String name,
+    long firstDate,
+    LocalDate until,
+    List<LocalDate> exceptions
+  ) throws Exception {
+    return payload(name, teacherId, firstDate, until, exceptions);
+  }
+
+  private String payload(
+    String name,
+    Long teacherId,
+    long firstDate,
+    LocalDate until,
+    List<LocalDate> exceptions
+  ) throws Exception {
+    return objectMapper.writeValueAsString(
+      Map.of(
+        "name",
+        name,
+        "description",
+        "Same class every week.",
+        "teacher_id",
+        teacherId,
+        "capacity",
+        12,
+        "firstDate",
+        firstDate,
+        "until",
+        until.toString(),
+        "exceptions",
+        exceptions
+      )
+    );
+  }
+
+  private JsonNode create(String payload) throws Exception {
+    MvcResult result = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .post("/api/session/series")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(payload)
+      )
+      .andReturn();
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    return objectMapper.readTree(result.getResponse().getContentAsString());
+  }
+
+  private int count(String sql, Object... args) {
+    return jdbcTemplate.queryForObject(sql, Integer.class, args);
+  }
+
+  @Test
+  @DisplayName("Should create one session per week, except on the exception days")
+  @WithMockUser
+  void testCreate_MaterialisesOccurrences() throws Exception {
+    long firstDate = System.currentTimeMillis() + WEEK_MS;
+    LocalDate firstDay = LocalDate.now().plusWeeks(1);
+
+    JsonNode series = create(
+      payload(
+        "Monday flow",
+        firstDate,
+        firstDay.plusWeeks(4),
+        List.of(firstDay.plusWeeks(2))
+      )
+    );
+
+    long seriesId = series.get("id").asLong();
+    assertThat(series.get("occurrences").asLong()).isEqualTo(4);
+    assertThat(
+      jdbcTemplate.queryForList(
+        "SELECT date FROM SESSIONS WHERE series_id = ? ORDER BY date",
+        Timestamp.class,
+        seriesId
+      )
+    )
+      .extracting(date ->
+        ChronoUnit.WEEKS.between(
+          firstDay,
+          date.toLocalDateTime().toLocalDate()
+        )
+      )
+      .containsExactly(0L, 1L, 3L, 4L);
+    assertThat(
+      count(
+        "SELECT COUNT(*) FROM SESSIONS WHERE series_id = ? AND name = 'Monday flow' AND capacity = 12",
+        seriesId
+      )
+    )
+      .isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("Should reject a series without any occurrence")
+  @WithMockUser
+  void testCreate_RejectsEmptySeries() throws Exception {
+    LocalDate firstDay = LocalDate.now().plusWeeks(1);
+
+    int status = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .post("/api/session/series")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(
+            payload(
+              "Never held",
+              System.currentTimeMillis() + WEEK_MS,
+              firstDay,
+              List.of(firstDay)
+            )
+          )
+      )
+      .andReturn()
+      .getResponse()
+      .getStatus();
+
+    assertThat(status).isEqualTo(400);
+    assertThat(sessionSeriesRepository.count()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should reject an unknown teacher id on create and update")
+  @WithMockUser
+  void testCreateAndUpdate_RejectUnknownTeacher() throws Exception {
+    long firstDate = System.currentTimeMillis() + WEEK_MS;
+    LocalDate until = LocalDate.now().plusWeeks(2);
+    String unknownTeacher = payload("Monday flow", -1L, firstDate, until, List.of());
+
+    int status = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .post("/api/session/series")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(unknownTeacher)
+      )
+      .andReturn()
+      .getResponse()
+      .getStatus();
+    assertThat(status).isEqualTo(400);
+    assertThat(sessionSeriesRepository.count()).isZero();
+
+    long seriesId = create(payload("Monday flow", firstDate, until, List.of()))
+      .get("id")
+      .asLong();
+    status =
+      mockMvc
+        .perform(
+          MockMvcRequestBuilders
+            .put("/api/session/series/" + seriesId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(unknownTeacher)
+        )
+        .andReturn()
+        .getResponse()
+        .getStatus();
+    assertThat(status).isEqualTo(400);
+    assertThat(
+      count(
+        "SELECT COUNT(*) FROM SESSIONS WHERE series_id = ? AND teacher_id IS NULL",
+        seriesId
+      )
+    )
+      .isZero();
+  }
+
+  @Test
+  @DisplayName("Should edit, then cancel, only the upcoming occurrences")
+  @WithMockUser
+  void testUpdateAndDelete_UpcomingOccurrences() throws Exception {
+    long firstDate = System.currentTimeMillis() - 2 * WEEK_MS - 60000;
+    LocalDate until = LocalDate.now().plusWeeks(2);
+    long seriesId = create(
+      payload("Monday flow", firstDate, until, List.of())
+    )
+      .get("id")
+      .asLong();
+    assertThat(count("SELECT COUNT(*) FROM SESSIONS WHERE series_id = ?", seriesId))
+      .isEqualTo(5);
+
+    int status = mockMvc
+      .perform(
+        MockMvcRequestBuilders
+          .put("/api/session/series/" + seriesId)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(payload("Monday yin", firstDate, until, List.of()))
+      )
+      .andReturn()
+      .getResponse()
+      .getStatus();
+    assertThat(status).isEqualTo(200);
+    assertThat(
+      count(
+        "SELECT COUNT(*) FROM SESSIONS WHERE series_id = ? AND name = 'Monday yin'",
+        seriesId
+      )
+    )
+      .isEqualTo(2);
+
+    status =
+      mockMvc
+        .perform(MockMvcRequestBuilders.delete("/api/session/series/" + seriesId))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+    assertThat(status).isEqualTo(200);
+    assertThat(count("SELECT COUNT(*) FROM SESSIONS WHERE series_id = ?", seriesId))
+      .isZero();
+    assertThat(
+      count("SELECT COUNT(*) FROM SESSIONS WHERE name = 'Monday flow' AND series_id IS NULL")
+    )
+      .isEqualTo(3);
+    assertThat(
+      mockMvc
+        .perform(MockMvcRequestBuilders.get("/api/session/series/" + seriesId))
+        .andReturn()
+        .getResponse()
+        .getStatus()
+    )
+      .isEqualTo(404);
+  }
+}
@@ -2,14 +2,18 @@ package com.openclassrooms.starterjwt.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.services.UserService;
 
 import org.junit.platform.suite.api.SuiteDisplayName;
 
 import java.util.Collections;
+import java.util.Date;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +46,9 @@ public class UserControllerIntegrationTest {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private SessionRepository sessionRepository;
+
   @Autowired
   private MockMvc mockMvc;
 
@@ -151,4 +158,54 @@ public class UserControllerIntegrationTest {
       assertThat(userService.findById(Long.parseLong(id))).isNotNull();
     }
   }
+
+  @Test
+  @DisplayName("Should give back the seats of a deleted user")
+  @WithMockUser
+  void testDelete_ReleasesSeats() throws Exception {
+    User user = new User();
+    user.setEmail("booker@studio.com");
+    user.setLastName("Booker");
+    user.setFirstName("Booker");
+    user.setPassword("password");
+    user.setAdmin(false);
+    Long userId = userRepository.save(user).getId();
+
+    Session session = new Session();
+    session.setName("Small class");
+    session.setDescription("Two seats only.");
+    session.setDate(new Date());
+    session.setCapacity(2);
+    Long sessionId = sessionRepository.save(session).getId();
+    sessionRepository.reserveSeat(sessionId);
+    sessionRepository.insertParticipation(sessionId, userId);
+
+    UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+      "booker@studio.com",
+      "",
+      Collections.emptyList()
+    );
+    SecurityContextHolder
+      .getContext()
+      .setAuthentication(
+        new UsernamePasswordAuthenticationToken(
+          userDetails,
+          null,
+          userDetails.getAuthorities()
+        )
+      );
+
+    int status = mockMvc
+      .perform(MockMvcRequestBuilders.delete("/api/user/" + userId))
+      .andReturn()
+      .getResponse()
+      .getStatus();
+
+    assertThat(status).isEqualTo(200);
+    assertThat(userRepository.findById(userId)).isEmpty();
+    assertThat(sessionRepository.findById(sessionId).get().getSeatsTaken())
+      .isZero();
+    assertThat(sessionRepository.countParticipation(sessionId, userId))
+      .isZero();
+  }
 }
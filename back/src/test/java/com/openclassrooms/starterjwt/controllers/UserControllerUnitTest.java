@@ -91,45 +91,35 @@ class UserControllerUnitTest {
   @CsvSource(
     {
       "Regular case : successfully delete user, 1, true, test@example.com, 200",
-      "Fail to delete : non-existing user id, 999, false, , 404",
+      "Fail to delete : non-existing user id, 999, false, test@example.com, 404",
       "Fail to delete : invalid user id format, invalid, false, , 400",
-      //"Fail to delete : Unauthorized user, 1, true, unauthorized@example.com, 401",
+      "Fail to delete : Unauthorized user, 1, true, unauthorized@example.com, 401",
     }
-  ) // TO DO : handle unauthorize 400/401 ?
+  )
   @DisplayName("Should handle different Delete scenario ")
   void testDeleteScenarios(
     String scenarioName,
     String inputId,
-    boolean serviceResponseExists,
+    boolean userExists,
     String authenticatedEmail,
     int expectedStatus
   ) {
-    User serviceResponse = serviceResponseExists ? new User() : null;
-
-    if (serviceResponseExists) {
-      serviceResponse.setId(1L);
-      serviceResponse.setEmail(authenticatedEmail);
-    }
-
     if (!"invalid".equals(inputId)) {
-      when(
-        userService.findById(
-          serviceResponseExists ? Long.parseLong(inputId) : null
-        )
-      )
-        .thenReturn(serviceResponse);
-
-      if (authenticatedEmail != null) {
-        UserDetails userDetails = mock(UserDetails.class);
-        when(userDetails.getUsername()).thenReturn(authenticatedEmail);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getPrincipal()).thenReturn(userDetails);
-      }
+      Long userId = Long.parseLong(inputId);
+      UserDetails userDetails = mock(UserDetails.class);
+      when(userDetails.getUsername()).thenReturn(authenticatedEmail);
+      when(securityContext.getAuthentication()).thenReturn(authentication);
+      when(authentication.getPrincipal()).thenReturn(userDetails);
+
+      when(userService.delete(userId, authenticatedEmail))
+        .thenReturn(expectedStatus == 200);
+      when(userService.existsById(userId)).thenReturn(userExists);
     }
 
     ResponseEntity<?> response = userController.save(inputId);
 
     assertThat(response).isNotNull();
     assertThat(response.getStatusCodeValue()).isEqualTo(expectedStatus);
+    verify(userService, never()).findById(any());
   }
 }
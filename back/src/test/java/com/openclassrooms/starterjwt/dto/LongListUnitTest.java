@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("DTO")
+@DisplayName("Unit tests for LongList")
+class LongListUnitTest {
+
+  @Test
+  @DisplayName("Should behave as a list of the values it was built from")
+  void builder_ShouldBuildIndependentLists() {
+    LongList.Builder builder = new LongList.Builder();
+    for (long id = 1; id <= 20; id++) {
+      builder.add(id);
+    }
+    LongList first = builder.buildAndReset();
+    LongList second = builder.add(42L).buildAndReset();
+
+    assertThat(first).hasSize(20).startsWith(1L, 2L).endsWith(20L);
+    assertThat(first.getLong(4)).isEqualTo(5L);
+    assertThat(second).isEqualTo(List.of(42L));
+    assertThat(builder.isEmpty()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should serialize as a plain JSON array inside a SessionDto")
+  void serialize_ShouldWriteJsonArray() throws Exception {
+    SessionDto sessionDto = new SessionDto();
+    sessionDto.setUsers(LongList.of(3L, 1L, 2L));
+
+    String json = new ObjectMapper().writeValueAsString(sessionDto);
+
+    assertThat(json).contains("\"users\":[3,1,2]");
+  }
+}
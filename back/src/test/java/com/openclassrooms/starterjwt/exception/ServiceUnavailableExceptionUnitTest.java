@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+@SuiteDisplayName("EXCEPTION")
+@DisplayName("Unit tests for ServiceUnavailableException")
+class ServiceUnavailableExceptionUnitTest {
+
+  @Test
+  @DisplayName("Should carry a 503 status and a Retry-After header")
+  void should_create_ServiceUnavailable_exception_with_retry_after() {
+    ServiceUnavailableException exception = new ServiceUnavailableException(
+      5
+    );
+
+    assertThat(exception).isInstanceOf(RuntimeException.class);
+    assertThat(exception.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    assertThat(exception.getRetryAfterSeconds()).isEqualTo(5);
+    assertThat(exception.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+      .isEqualTo("5");
+  }
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+@SuiteDisplayName("EXCEPTION")
+@DisplayName("Unit tests for TooManyRequestsException")
+class TooManyRequestsExceptionUnitTest {
+
+  @Test
+  @DisplayName("Should carry a 429 status and a Retry-After header")
+  void should_create_TooManyRequests_exception_with_retry_after() {
+    TooManyRequestsException exception = new TooManyRequestsException(60);
+
+    assertThat(exception).isInstanceOf(RuntimeException.class);
+    assertThat(exception.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    assertThat(exception.getRetryAfterSeconds()).isEqualTo(60);
+    assertThat(exception.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+      .isEqualTo("60");
+  }
+}
@@ -1,9 +1,11 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
@@ -13,6 +15,8 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -59,6 +63,9 @@ class SessionsMapperUnitTest {
         1L,
         "Description 1",
         Arrays.asList(11L, 12L),
+        null,
+        0,
+        null,
         TEST_DATETIME,
         TEST_DATETIME
       ),
@@ -69,6 +76,9 @@ class SessionsMapperUnitTest {
         2L,
         "Description 2",
         Arrays.asList(13L),
+        null,
+        0,
+        null,
         TEST_DATETIME,
         TEST_DATETIME
       )
@@ -93,6 +103,26 @@ class SessionsMapperUnitTest {
     }
   }
 
+  @Test
+  @DisplayName("Should take list participants from the given ids")
+  void toDtoListWithParticipantIds_ShouldNotReadUsers() {
+    Session withParticipants = createFullSession(1L, "Session 1", "Description 1");
+    Session withoutParticipants = createFullSession(2L, "Session 2", "Description 2");
+    withParticipants.setUsers(null);
+    withoutParticipants.setUsers(null);
+
+    List<SessionDto> result = sessionMapper.toDto(
+      List.of(withParticipants, withoutParticipants),
+      Map.of(1L, List.of(11L, 12L))
+    );
+
+    assertThat(result).hasSize(2);
+    assertThat(result.get(0).getName()).isEqualTo("Session 1");
+    assertThat(result.get(0).getTeacher_id()).isEqualTo(1L);
+    assertThat(result.get(0).getUsers()).containsExactly(11L, 12L);
+    assertThat(result.get(1).getUsers()).isEmpty();
+  }
+
   @Test
   @DisplayName("Should map correctly toEntity List")
   void toEntityList_ShouldMapCorrectly() {
@@ -106,6 +136,7 @@ class SessionsMapperUnitTest {
       "Smith",
       "password",
       false,
+      0,
       TEST_DATETIME,
       TEST_DATETIME
     );
@@ -116,11 +147,12 @@ class SessionsMapperUnitTest {
       "Doe",
       "password",
       false,
+      0,
       TEST_DATETIME,
       TEST_DATETIME
     );
-    when(userService.findById(11L)).thenReturn(mockedUser1);
-    when(userService.findById(12L)).thenReturn(mockedUser2);
+    when(userService.findAllById(any()))
+      .thenReturn(List.of(mockedUser1, mockedUser2));
 
     List<SessionDto> sessionDtos = List.of(
       new SessionDto(
@@ -130,6 +162,9 @@ class SessionsMapperUnitTest {
         1L,
         "Description 1",
         Arrays.asList(11L, 12L),
+        null,
+        0,
+        null,
         TEST_DATETIME,
         TEST_DATETIME
       )
@@ -159,6 +194,51 @@ class SessionsMapperUnitTest {
       assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
       assertThat(actual.getUpdatedAt()).isEqualTo(expected.getUpdatedAt());
     }
+    verify(userService, times(1)).findAllById(Set.of(11L, 12L));
+    verify(userService, never()).findById(any());
+  }
+
+  @Test
+  @DisplayName("Should share one user instance across the sessions of a list")
+  void toEntityList_ShouldResolveUsersOnce() {
+    User mockedUser = createUser(11L);
+    when(userService.findAllById(any())).thenReturn(List.of(mockedUser));
+    SessionDto first = new SessionDto();
+    first.setUsers(List.of(11L));
+    SessionDto second = new SessionDto();
+    second.setUsers(List.of(11L, 11L));
+
+    List<Session> result = sessionMapper.toEntity(List.of(first, second));
+
+    assertThat(result.get(0).getUsers()).containsExactly(mockedUser);
+    assertThat(result.get(1).getUsers()).containsExactly(mockedUser);
+    assertThat(result.get(1).getUsers().get(0))
+      .isSameAs(result.get(0).getUsers().get(0));
+    verify(userService, times(1)).findAllById(any());
+  }
+
+  @Test
+  @DisplayName("Should report the user ids matching no user")
+  void toEntity_ShouldRejectUnknownUsers() {
+    when(userService.findAllById(any())).thenReturn(List.of(createUser(11L)));
+    SessionDto sessionDto = new SessionDto();
+    sessionDto.setUsers(List.of(11L, 98L, 99L));
+
+    assertThatThrownBy(() -> sessionMapper.toEntity(sessionDto))
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("[98, 99]");
+  }
+
+  @Test
+  @DisplayName("Should reject a teacher id matching no teacher")
+  void toEntity_ShouldRejectUnknownTeacher() {
+    when(teacherService.findById(99L)).thenReturn(null);
+    SessionDto sessionDto = new SessionDto();
+    sessionDto.setTeacher_id(99L);
+
+    assertThatThrownBy(() -> sessionMapper.toEntity(sessionDto))
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("unknown teacher id");
   }
 
   private static Session createFullSession(
@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.openclassrooms.starterjwt.models.Session;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+@SuiteDisplayName("REPOSITORY")
+@DisplayName("Unit tests for SessionSearchRepositoryImpl")
+class SessionSearchRepositoryImplUnitTest {
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Mock
+  private Query query;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(entityManager.createNativeQuery(anyString(), eq(Session.class)))
+      .thenReturn(query);
+    when(query.getResultList()).thenReturn(List.of());
+  }
+
+  @Test
+  @DisplayName("Should match every word as a prefix through the full-text index")
+  void search_ShouldUseMatchAgainst() {
+    Date from = new Date(1000);
+    Date to = new Date(2000);
+    Date after = new Date(1500);
+
+    new SessionSearchRepositoryImpl(entityManager, true)
+      .search(from, to, 3L, "Evening +vinyasa*", after, 7L, 21);
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(entityManager).createNativeQuery(sql.capture(), eq(Session.class));
+    assertThat(sql.getValue())
+      .isEqualTo(
+        "SELECT s.* FROM SESSIONS s WHERE 1 = 1" +
+        " AND s.date >= :from" +
+        " AND s.date < :to" +
+        " AND s.teacher_id = :teacherId" +
+        " AND MATCH (s.name, s.description) AGAINST (:keyword IN BOOLEAN MODE)" +
+        " AND (s.date > :afterDate OR (s.date = :afterDate AND s.id > :afterId))" +
+        " ORDER BY s.date, s.id"
+      );
+    verify(query).setParameter("from", from, TemporalType.TIMESTAMP);
+    verify(query).setParameter("to", to, TemporalType.TIMESTAMP);
+    verify(query).setParameter("teacherId", 3L);
+    verify(query).setParameter("keyword", "+evening* +vinyasa*");
+    verify(query).setParameter("afterDate", after, TemporalType.TIMESTAMP);
+    verify(query).setParameter("afterId", 7L);
+    verify(query).setMaxResults(21);
+    verify(query).getResultList();
+    verifyNoMoreInteractions(query);
+  }
+
+  @Test
+  @DisplayName("Should match every word anywhere in the text through LIKE without the full-text index")
+  void search_ShouldUseLikeWithoutFullText() {
+    new SessionSearchRepositoryImpl(entityManager, false)
+      .search(null, null, null, "Evening vinyasa", null, null, 21);
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(entityManager).createNativeQuery(sql.capture(), eq(Session.class));
+    assertThat(sql.getValue())
+      .isEqualTo(
+        "SELECT s.* FROM SESSIONS s WHERE 1 = 1" +
+        " AND (LOWER(s.name) LIKE :term0 OR LOWER(s.description) LIKE :term0)" +
+        " AND (LOWER(s.name) LIKE :term1 OR LOWER(s.description) LIKE :term1)" +
+        " ORDER BY s.date, s.id"
+      );
+    verify(query).setParameter("term0", "%evening%");
+    verify(query).setParameter("term1", "%vinyasa%");
+  }
+
+  @Test
+  @DisplayName("Should leave out the filters that are not given")
+  void search_ShouldOnlyFilterOnGivenCriteria() {
+    Date after = new Date(1000);
+
+    new SessionSearchRepositoryImpl(entityManager, false)
+      .search(null, null, null, " ", after, 7L, 5);
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(entityManager).createNativeQuery(sql.capture(), eq(Session.class));
+    assertThat(sql.getValue())
+      .isEqualTo(
+        "SELECT s.* FROM SESSIONS s WHERE 1 = 1" +
+        " AND (s.date > :afterDate OR (s.date = :afterDate AND s.id > :afterId))" +
+        " ORDER BY s.date, s.id"
+      );
+    verify(query).setParameter("afterDate", after, TemporalType.TIMESTAMP);
+    verify(query).setParameter("afterId", 7L);
+  }
+
+  @Test
+  @DisplayName("Should keep at most five lower-cased words, without operators or wildcards")
+  void terms_ShouldSplitOnAnythingButLettersAndDigits() {
+    assertThat(
+      SessionSearchRepositoryImpl.terms("Yoga-Nidra \"100%_\" (É) a b c d")
+    )
+      .containsExactly("yoga", "nidra", "100", "é", "a");
+  }
+}
@@ -2,9 +2,13 @@ package com.openclassrooms.starterjwt.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.platform.suite.api.SuiteDisplayName;
@@ -22,6 +26,9 @@ class UserRepositoryIntegrationTest {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private SessionRepository sessionRepository;
+
   @ParameterizedTest(name = "({index}) : {0} [{5}]")
   @CsvSource(
     {
@@ -122,4 +129,54 @@ class UserRepositoryIntegrationTest {
 
     assertThat(userRepository.findById(savedUser.getId())).isPresent();
   }
+
+  @Test
+  @DisplayName("Should start users at token version 0 and persist each bump")
+  @Transactional
+  void testIncrementTokenVersion() {
+    User user = new User();
+    user
+      .setEmail("versioned@studio.com")
+      .setFirstName("John")
+      .setLastName("Doe")
+      .setPassword("encodedPassword")
+      .setAdmin(false);
+    Long id = userRepository.saveAndFlush(user).getId();
+
+    assertThat(userRepository.incrementTokenVersion(id)).isEqualTo(1);
+    userRepository.incrementTokenVersion(id);
+
+    assertThat(userRepository.findById(id).get().getTokenVersion()).isEqualTo(2);
+    assertThat(userRepository.findTokenVersionById(id)).contains(2);
+    assertThat(userRepository.incrementTokenVersion(-1L)).isZero();
+    assertThat(userRepository.findTokenVersionById(-1L)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should list the sessions a user takes part in")
+  @Transactional
+  void testFindParticipatedSessionIds() {
+    User user = new User();
+    user
+      .setEmail("participant@studio.com")
+      .setFirstName("John")
+      .setLastName("Doe")
+      .setPassword("encodedPassword")
+      .setAdmin(false);
+    user = userRepository.save(user);
+    Long sessionId = sessionRepository
+      .saveAndFlush(
+        new Session()
+          .setName("Morning flow")
+          .setDescription("Booked by the user.")
+          .setDate(new Date())
+          .setUsers(List.of(user))
+      )
+      .getId();
+
+    assertThat(userRepository.findParticipatedSessionIds(user.getId()))
+      .extracting(Number::longValue)
+      .containsExactly(sessionId);
+    assertThat(userRepository.findParticipatedSessionIds(-1L)).isEmpty();
+  }
 }
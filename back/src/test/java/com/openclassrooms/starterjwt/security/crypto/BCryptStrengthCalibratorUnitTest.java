@@ -0,0 +1,61 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for BCryptStrengthCalibrator")
+class BCryptStrengthCalibratorUnitTest {
+
+  @Test
+  @DisplayName("Should keep a fixed strength when min and max are equal")
+  void calibrate_ShouldReturnFixedStrength() {
+    assertThat(new BCryptStrengthCalibrator(250, 4, 4).calibrate()).isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("Should extrapolate up to the highest strength within target")
+  void calibrate_ShouldDoubleUntilTarget() {
+    BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(
+      100,
+      4,
+      14
+    ) {
+      @Override
+      long measure(int strength) {
+        return 10_000_000L;
+      }
+    };
+
+    // 10 ms at strength 4, then 20, 40, 80 ms: 160 ms would exceed 100 ms.
+    assertThat(calibrator.calibrate()).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("Should stay within the configured bounds")
+  void calibrate_ShouldClampToBounds() {
+    assertThat(
+      new BCryptStrengthCalibrator(0, 4, 6) {
+        @Override
+        long measure(int strength) {
+          return 1_000_000L;
+        }
+      }
+        .calibrate()
+    )
+      .isEqualTo(4);
+    assertThat(
+      new BCryptStrengthCalibrator(60_000, 4, 6) {
+        @Override
+        long measure(int strength) {
+          return 1_000_000L;
+        }
+      }
+        .calibrate()
+    )
+      .isEqualTo(6);
+  }
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for BoundedPasswordEncoder")
+class BoundedPasswordEncoderUnitTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private BoundedPasswordEncoder passwordEncoder;
+
+  @AfterEach
+  void tearDown() {
+    passwordEncoder.shutdown();
+  }
+
+  @Test
+  @DisplayName("Should encode and verify through the hashing pool")
+  void encodeAndMatches_ShouldDelegate() {
+    passwordEncoder =
+      new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(4),
+        2,
+        4,
+        1,
+        meterRegistry
+      );
+
+    String encoded = passwordEncoder.encode("password");
+
+    assertThat(passwordEncoder.matches("password", encoded)).isTrue();
+    assertThat(passwordEncoder.matches("wrong", encoded)).isFalse();
+    assertThat(meterRegistry.get("password.hashing.queue.wait").timer().count())
+      .isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should shed work with a 503 once the pool and its queue are full")
+  void encode_ShouldRejectWhenSaturated() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blockingEncoder = new PasswordEncoder() {
+      @Override
+      public String encode(CharSequence rawPassword) {
+        started.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return rawPassword.toString();
+      }
+
+      @Override
+      public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return true;
+      }
+    };
+    passwordEncoder =
+      new BoundedPasswordEncoder(blockingEncoder, 1, 1, 3, meterRegistry);
+
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() ->
+      passwordEncoder.encode("first")
+    );
+    started.await(5, TimeUnit.SECONDS);
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() ->
+      passwordEncoder.encode("second")
+    );
+    while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+      Thread.sleep(5);
+    }
+
+    assertThatThrownBy(() -> passwordEncoder.encode("third"))
+      .isInstanceOf(ServiceUnavailableException.class)
+      .extracting("retryAfterSeconds")
+      .isEqualTo(3L);
+    assertThat(meterRegistry.get("password.hashing.rejected").counter().count())
+      .isEqualTo(1);
+
+    release.countDown();
+    assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+  }
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for CalibratedBCryptPasswordEncoder")
+class CalibratedBCryptPasswordEncoderUnitTest {
+
+  @ParameterizedTest(name = "({index}) : stored {0}, current {1}")
+  @CsvSource({ "4, 5, true", "6, 5, false", "5, 5, false" })
+  @DisplayName("Should ask for a rehash only when the stored cost is lower")
+  void upgradeEncoding_ShouldCompareStoredCost(
+    int storedStrength,
+    int currentStrength,
+    boolean expected
+  ) {
+    String stored = new BCryptPasswordEncoder(storedStrength).encode("secret");
+
+    assertThat(
+      new CalibratedBCryptPasswordEncoder(currentStrength).upgradeEncoding(stored)
+    )
+      .isEqualTo(expected);
+  }
+
+  @Test
+  @DisplayName("Should not ask for a rehash of a missing or foreign hash")
+  void upgradeEncoding_ShouldIgnoreUnknownFormats() {
+    CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(
+      4
+    );
+
+    assertThat(encoder.upgradeEncoding(null)).isFalse();
+    assertThat(encoder.upgradeEncoding("plain-text")).isFalse();
+  }
+}
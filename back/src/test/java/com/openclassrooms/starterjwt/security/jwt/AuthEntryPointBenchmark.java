@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Cost of writing a 401 body: the former ObjectMapper-per-call path against
+ * AuthEntryPointJwt. Run with the GC profiler to compare allocations:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="AuthEntryPointBenchmark -prof gc"
+ * and read gc.alloc.rate.norm (bytes per 401).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthEntryPointBenchmark {
+
+  private AuthEntryPointJwt authEntryPointJwt;
+
+  private MockHttpServletRequest request;
+
+  private MockHttpServletResponse response;
+
+  private AuthenticationException authException;
+
+  @Setup
+  public void setUp() {
+    authEntryPointJwt = new AuthEntryPointJwt(new SimpleMeterRegistry());
+    request = new MockHttpServletRequest();
+    request.setServletPath("/api/session");
+    response = new MockHttpServletResponse();
+    authException =
+      new InsufficientAuthenticationException(
+        "Full authentication is required to access this resource"
+      );
+  }
+
+  @Benchmark
+  public int objectMapperPerCall() throws IOException {
+    response.reset();
+    response.setContentType("application/json");
+    response.setStatus(401);
+    Map<String, Object> body = new HashMap<>();
+    body.put("status", 401);
+    body.put("error", "Unauthorized");
+    body.put("message", authException.getMessage());
+    body.put("path", request.getServletPath());
+    new ObjectMapper().writeValue(response.getOutputStream(), body);
+    return response.getContentLength();
+  }
+
+  @Benchmark
+  public int preSerialized() throws IOException, ServletException {
+    response.reset();
+    authEntryPointJwt.commence(request, response, authException);
+    return response.getContentLength();
+  }
+}
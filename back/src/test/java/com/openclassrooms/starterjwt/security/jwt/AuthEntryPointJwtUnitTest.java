@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for AuthEntryPointJwt")
+class AuthEntryPointJwtUnitTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private AuthEntryPointJwt authEntryPointJwt;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    authEntryPointJwt = new AuthEntryPointJwt(meterRegistry);
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    {
+      "Plain message, Bad credentials, /api/session",
+      "Message to escape, 'Token \"abc\" is \\invalid', /api/user/1",
+      "Non-ASCII path, Full authentication is required, /api/séance",
+    }
+  )
+  @DisplayName("Should write a valid JSON 401 body scenario ")
+  void commence_ShouldWriteJsonBody(
+    String scenarioName,
+    String message,
+    String path
+  ) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setServletPath(path);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    authEntryPointJwt.commence(
+      request,
+      response,
+      new BadCredentialsException(message)
+    );
+
+    JsonNode body = new ObjectMapper()
+      .readTree(response.getContentAsByteArray());
+    assertThat(response.getStatus()).isEqualTo(401);
+    assertThat(response.getContentType()).isEqualTo("application/json");
+    assertThat(response.getContentLength())
+      .isEqualTo(response.getContentAsByteArray().length);
+    assertThat(body.get("status").asInt()).isEqualTo(401);
+    assertThat(body.get("error").asText()).isEqualTo("Unauthorized");
+    assertThat(body.get("message").asText()).isEqualTo(message);
+    assertThat(body.get("path").asText()).isEqualTo(path);
+  }
+
+  @ParameterizedTest(name = "({index}) : {0} rejections")
+  @CsvSource({ "1", "50" })
+  @DisplayName("Should count every rejection")
+  void commence_ShouldCountRejections(int rejections) throws Exception {
+    for (int i = 0; i < rejections; i++) {
+      authEntryPointJwt.commence(
+        new MockHttpServletRequest(),
+        new MockHttpServletResponse(),
+        new BadCredentialsException("Bad credentials")
+      );
+    }
+
+    assertThat(meterRegistry.get("auth.unauthorized").counter().count())
+      .isEqualTo(rejections);
+  }
+}
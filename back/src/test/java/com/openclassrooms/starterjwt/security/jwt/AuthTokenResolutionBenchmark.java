@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.SessionTicketStore;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request cost of turning the bearer token into a principal in
+ * AuthTokenFilter, for each oc.app.authMode: DATABASE (JWT check, then the
+ * principal from a warm UserDetailsCache), CLAIMS (JWT check, token version
+ * checked in memory, principal rebuilt from the claims) and TICKET
+ * (one lookup in SessionTicketStore).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AuthTokenResolutionBenchmark {
+
+  private static final String JWT_SECRET =
+    "Here_Is4LongMockedKeyToPerform_HS512!Encryption.";
+
+  private JwtUtils jwtUtils;
+
+  private UserDetailsCache userDetailsCache;
+
+  private SessionTicketStore sessionTicketStore;
+
+  private UserDetailsImpl userDetails;
+
+  private String jwt;
+
+  private String ticket;
+
+  @Setup
+  public void setUp() {
+    jwtUtils = new JwtUtils();
+    jwtUtils.jwtSecret = JWT_SECRET;
+    jwtUtils.jwtExpirationMs = 3600000;
+    jwtUtils.tokenVersionRegistry =
+      new TokenVersionRegistry(null, null, jwtUtils.jwtExpirationMs);
+
+    userDetails =
+      UserDetailsImpl
+        .builder()
+        .id(1L)
+        .username("yoga@studio.com")
+        .firstName("Admin")
+        .lastName("Admin")
+        .admin(true)
+        .build();
+    userDetailsCache = new UserDetailsCache(1000, 3600000, new SimpleMeterRegistry());
+    userDetailsCache.get(userDetails.getUsername(), email -> userDetails);
+    sessionTicketStore =
+      new SessionTicketStore(1000, 3600000, new SimpleMeterRegistry());
+
+    jwt = jwtUtils.generateJwtToken(userDetails, "session");
+    ticket = sessionTicketStore.issue(userDetails);
+  }
+
+  @Benchmark
+  public UserDetailsImpl jwtWithCachedPrincipal() {
+    return userDetailsCache.get(
+      jwtUtils.parseJwtClaims(jwt).getSubject(),
+      email -> userDetails
+    );
+  }
+
+  @Benchmark
+  public UserDetailsImpl jwtClaims() {
+    return jwtUtils.getUserDetailsFromJwtClaims(jwtUtils.parseJwtClaims(jwt));
+  }
+
+  @Benchmark
+  public UserDetailsImpl ticket() {
+    return sessionTicketStore.resolve(ticket);
+  }
+}
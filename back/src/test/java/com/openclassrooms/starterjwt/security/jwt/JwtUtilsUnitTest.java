@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import java.util.Date;
@@ -13,6 +14,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import java.util.Optional;
 
 class JwtUtilsUnitTest {
 
@@ -21,6 +25,12 @@ class JwtUtilsUnitTest {
   @Mock
   private Authentication authentication;
 
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private UserDetailsCache userDetailsCache;
+
   private final String jwtSecret =
     "Here_Is4LongMockedKeyToPerform_HS512!Encryption.";
   private final int jwtExpirationMs = 60000;
@@ -31,6 +41,9 @@ class JwtUtilsUnitTest {
     jwtUtils = new JwtUtils();
     jwtUtils.jwtSecret = jwtSecret;
     jwtUtils.jwtExpirationMs = jwtExpirationMs;
+    jwtUtils.jwtRefreshExpirationMs = 3600000;
+    jwtUtils.tokenVersionRegistry =
+      new TokenVersionRegistry(userRepository, userDetailsCache, jwtExpirationMs);
   }
 
   @Test
@@ -42,6 +55,7 @@ class JwtUtilsUnitTest {
       "testPassword",
       "test@example.com",
       null,
+      0,
       jwtSecret
     );
     when(authentication.getPrincipal()).thenReturn(userDetails);
@@ -62,6 +76,7 @@ class JwtUtilsUnitTest {
       "testPassword",
       "test@example.com",
       null,
+      0,
       jwtSecret
     );
     String token = generateTestToken(userDetails.getUsername());
@@ -80,6 +95,7 @@ class JwtUtilsUnitTest {
       "testPassword",
       "test@example.com",
       null,
+      0,
       jwtSecret
     );
     String token = generateTestToken(userDetails.getUsername());
@@ -109,6 +125,123 @@ class JwtUtilsUnitTest {
     assertThat(isValid).isFalse();
   }
 
+  @Test
+  @DisplayName("Should return the claims of a valid token and null otherwise")
+  void parseJwtClaims_ShouldReturnClaimsOnlyForValidToken() {
+    String validToken = generateTestToken("testUser");
+    String expiredToken = generateExpiredToken("testUser");
+
+    Claims claims = jwtUtils.parseJwtClaims(validToken);
+
+    assertThat(claims).isNotNull();
+    assertThat(claims.getSubject()).isEqualTo("testUser");
+    assertThat(jwtUtils.parseJwtClaims(expiredToken)).isNull();
+    assertThat(jwtUtils.parseJwtClaims("invalid.token")).isNull();
+    assertThat(jwtUtils.parseJwtClaims(null)).isNull();
+  }
+
+  @Test
+  @DisplayName("Should rebuild the principal from the claims of a generated token")
+  void getUserDetailsFromJwtClaims_ShouldRebuildPrincipal() {
+    UserDetailsImpl userDetails = UserDetailsImpl
+      .builder()
+      .id(7L)
+      .username("user@test.com")
+      .firstName("Jane")
+      .lastName("Doe")
+      .admin(true)
+      .password("encodedPassword")
+      .tokenVersion(2)
+      .build();
+    when(authentication.getPrincipal()).thenReturn(userDetails);
+
+    String token = jwtUtils.generateJwtToken(authentication);
+    UserDetailsImpl principal = jwtUtils.getUserDetailsFromJwtClaims(
+      jwtUtils.parseJwtClaims(token)
+    );
+
+    assertThat(principal).isNotNull();
+    assertThat(principal.getId()).isEqualTo(7L);
+    assertThat(principal.getUsername()).isEqualTo("user@test.com");
+    assertThat(principal.getFirstName()).isEqualTo("Jane");
+    assertThat(principal.getLastName()).isEqualTo("Doe");
+    assertThat(principal.getAdmin()).isTrue();
+    assertThat(principal.getPassword()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should reject the claims of a token issued before a revocation")
+  void getUserDetailsFromJwtClaims_ShouldReturnNullWhenVersionRevoked() {
+    UserDetailsImpl userDetails = UserDetailsImpl
+      .builder()
+      .id(7L)
+      .username("user@test.com")
+      .tokenVersion(0)
+      .build();
+    String token = jwtUtils.generateJwtToken(userDetails, null);
+    UserDetailsImpl revoked = UserDetailsImpl
+      .builder()
+      .id(7L)
+      .username("user@test.com")
+      .tokenVersion(1)
+      .build();
+    when(userRepository.incrementTokenVersion(7L)).thenReturn(1);
+    when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(1));
+    jwtUtils.tokenVersionRegistry.invalidate(7L);
+
+    assertThat(jwtUtils.getUserDetailsFromJwtClaims(jwtUtils.parseJwtClaims(token)))
+      .isNull();
+    assertThat(
+      jwtUtils.getUserDetailsFromJwtClaims(
+        jwtUtils.parseJwtClaims(jwtUtils.generateJwtToken(revoked, null))
+      )
+    )
+      .isNotNull();
+  }
+
+  @Test
+  @DisplayName("Should reject the claims of a user deleted since the token was issued")
+  void getUserDetailsFromJwtClaims_ShouldReturnNullWhenUserDeleted() {
+    UserDetailsImpl userDetails = UserDetailsImpl
+      .builder()
+      .id(7L)
+      .username("user@test.com")
+      .build();
+    String token = jwtUtils.generateJwtToken(userDetails, null);
+    jwtUtils.tokenVersionRegistry.invalidate(7L);
+
+    assertThat(jwtUtils.getUserDetailsFromJwtClaims(jwtUtils.parseJwtClaims(token)))
+      .isNull();
+  }
+
+  @Test
+  @DisplayName("Should tie access and refresh tokens to the same session")
+  void generateRefreshToken_ShouldCarrySessionAndType() {
+    UserDetailsImpl userDetails = UserDetailsImpl
+      .builder()
+      .id(7L)
+      .username("user@test.com")
+      .build();
+
+    Claims access = jwtUtils.parseJwtClaims(
+      jwtUtils.generateJwtToken(userDetails, "session")
+    );
+    Claims refresh = jwtUtils.parseJwtClaims(
+      jwtUtils.generateRefreshToken(userDetails, "session")
+    );
+    Claims otherRefresh = jwtUtils.parseJwtClaims(
+      jwtUtils.generateRefreshToken(userDetails, "session")
+    );
+
+    assertThat(jwtUtils.isRefreshToken(access)).isFalse();
+    assertThat(jwtUtils.isRefreshToken(refresh)).isTrue();
+    assertThat(jwtUtils.getSessionId(access)).isEqualTo("session");
+    assertThat(jwtUtils.getSessionId(refresh)).isEqualTo("session");
+    assertThat(refresh.getSubject()).isEqualTo("user@test.com");
+    assertThat(refresh.getId()).isNotNull().isNotEqualTo(otherRefresh.getId());
+    assertThat(refresh.getExpiration()).isAfter(access.getExpiration());
+  }
+
   private String generateTestToken(String username) {
     return Jwts
       .builder()
@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request cost of authenticating a bearer token in AuthTokenFilter:
+ * the former validate-then-extract path (two parsers, two HS512 checks)
+ * against the single parseJwtClaims call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+  private static final String JWT_SECRET =
+    "Here_Is4LongMockedKeyToPerform_HS512!Encryption.";
+
+  private JwtUtils jwtUtils;
+
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtUtils = new JwtUtils();
+    jwtUtils.jwtSecret = JWT_SECRET;
+    jwtUtils.jwtExpirationMs = 3600000;
+
+    token =
+      Jwts
+        .builder()
+        .setSubject("yoga@studio.com")
+        .setIssuedAt(new Date())
+        .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+        .signWith(SignatureAlgorithm.HS512, JWT_SECRET)
+        .compact();
+  }
+
+  @Benchmark
+  public String validateThenExtract() {
+    Jwts.parser().setSigningKey(JWT_SECRET).parseClaimsJws(token);
+    return Jwts
+      .parser()
+      .setSigningKey(JWT_SECRET)
+      .parseClaimsJws(token)
+      .getBody()
+      .getSubject();
+  }
+
+  @Benchmark
+  public String parseClaimsOnce() {
+    return jwtUtils.parseJwtClaims(token).getSubject();
+  }
+}
@@ -0,0 +1,91 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for RevokedTokenRegistry")
+class RevokedTokenRegistryUnitTest {
+
+  private final RevokedTokenRegistry registry = new RevokedTokenRegistry(
+    80000
+  );
+
+  @Test
+  @DisplayName("Should report only the revoked ids")
+  void isRevoked_ShouldMatchRevokedIdsOnly() {
+    long expiresAt = System.currentTimeMillis() + 60000;
+    for (int i = 0; i < 1000; i++) {
+      registry.revoke("revoked-" + i, expiresAt);
+    }
+
+    assertThat(registry.isRevoked("revoked-42")).isTrue();
+    assertThat(registry.isRevoked("revoked-999")).isTrue();
+    assertThat(registry.isRevoked("other-42")).isFalse();
+    assertThat(registry.isRevoked(null)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should spread ids over buckets by expiry")
+  void isRevoked_ShouldFindIdsInEveryBucket() {
+    long now = System.currentTimeMillis();
+    for (int i = 1; i <= 8; i++) {
+      registry.revoke("token-" + i, now + i * 10000L);
+    }
+
+    for (int i = 1; i <= 8; i++) {
+      assertThat(registry.isRevoked("token-" + i)).isTrue();
+    }
+  }
+
+  @Test
+  @DisplayName("Should not keep ids that have already expired")
+  void revoke_ShouldIgnoreExpiredIds() {
+    registry.revoke("expired", System.currentTimeMillis() - 1);
+
+    assertThat(registry.isRevoked("expired")).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should report the revocation to exactly one of the racing callers")
+  void revoke_ShouldBeWonByOneCallerOnly() throws Exception {
+    long expiresAt = System.currentTimeMillis() + 60000;
+    int callers = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    CountDownLatch start = new CountDownLatch(1);
+    int won = 0;
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            return registry.revoke("raced", expiresAt);
+          })
+        );
+      }
+      start.countDown();
+      for (Future<Boolean> future : futures) {
+        if (future.get(10, TimeUnit.SECONDS)) {
+          won++;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(won).isEqualTo(1);
+    assertThat(registry.isRevoked("raced")).isTrue();
+    assertThat(registry.revoke("raced", expiresAt)).isFalse();
+  }
+}
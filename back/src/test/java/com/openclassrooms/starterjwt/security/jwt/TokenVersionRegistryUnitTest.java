@@ -0,0 +1,95 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for TokenVersionRegistry")
+class TokenVersionRegistryUnitTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private UserDetailsCache userDetailsCache;
+
+  private TokenVersionRegistry tokenVersionRegistry;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    tokenVersionRegistry =
+      new TokenVersionRegistry(userRepository, userDetailsCache, 60000);
+  }
+
+  private static UserDetailsImpl principal(Integer tokenVersion) {
+    return UserDetailsImpl
+      .builder()
+      .id(1L)
+      .username("user@test.com")
+      .tokenVersion(tokenVersion)
+      .build();
+  }
+
+  @Test
+  @DisplayName("Should read the version from the principal, 0 when it has none")
+  void currentVersion_ShouldDefaultToZero() {
+    assertThat(tokenVersionRegistry.currentVersion(principal(null))).isZero();
+    assertThat(tokenVersionRegistry.currentVersion(principal(3))).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should accept any version of a user never invalidated, without a query")
+  void isCurrent_ShouldAcceptWithoutInvalidation() {
+    assertThat(tokenVersionRegistry.isCurrent(1L, 0)).isTrue();
+
+    verifyNoInteractions(userRepository, userDetailsCache);
+  }
+
+  @Test
+  @DisplayName("Should only accept versions from the one stored at invalidation")
+  void isCurrent_ShouldRejectVersionsBeforeInvalidation() {
+    when(userRepository.incrementTokenVersion(1L)).thenReturn(1);
+    when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(2));
+
+    tokenVersionRegistry.invalidate(1L);
+
+    assertThat(tokenVersionRegistry.isCurrent(1L, 1)).isFalse();
+    assertThat(tokenVersionRegistry.isCurrent(1L, 2)).isTrue();
+    assertThat(tokenVersionRegistry.isCurrent(2L, 1)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should reject every version of a deleted user")
+  void isCurrent_ShouldBeFalseForDeletedUser() {
+    when(userRepository.incrementTokenVersion(1L)).thenReturn(0);
+
+    tokenVersionRegistry.invalidate(1L);
+
+    assertThat(tokenVersionRegistry.isCurrent(1L, Integer.MAX_VALUE - 1)).isFalse();
+    verify(userRepository, never()).findTokenVersionById(1L);
+  }
+
+  @Test
+  @DisplayName("Should bump the stored version and drop the cached principal")
+  void invalidate_ShouldPersistTheBump() {
+    when(userRepository.incrementTokenVersion(1L)).thenReturn(1);
+    when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(1));
+
+    tokenVersionRegistry.invalidate(1L);
+
+    verify(userRepository).incrementTokenVersion(1L);
+    verify(userDetailsCache).evictUser(1L);
+  }
+}
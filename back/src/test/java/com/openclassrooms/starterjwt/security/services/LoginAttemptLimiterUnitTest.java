@@ -0,0 +1,133 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for LoginAttemptLimiter")
+class LoginAttemptLimiterUnitTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private LoginAttemptLimiter loginAttemptLimiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    loginAttemptLimiter = new LoginAttemptLimiter(3, 5, 60000, meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Should throttle an account after too many failures")
+  void checkAllowed_ShouldThrottleAccount() {
+    for (int i = 0; i < 3; i++) {
+      loginAttemptLimiter.checkAllowed("User@Test.com", "10.0.0.1");
+    }
+
+    assertThatThrownBy(() ->
+        loginAttemptLimiter.checkAllowed("user@test.com", "10.0.0.2")
+      )
+      .isInstanceOf(TooManyRequestsException.class);
+    assertThat(meterRegistry.get("auth.login.throttled").counter().count())
+      .isEqualTo(1);
+    assertThatCode(() ->
+        loginAttemptLimiter.checkAllowed("other@test.com", "10.0.0.1")
+      )
+      .doesNotThrowAnyException();
+  }
+
+  @Test
+  @DisplayName("Should throttle an IP spraying several accounts")
+  void checkAllowed_ShouldThrottleIp() {
+    for (int i = 0; i < 5; i++) {
+      loginAttemptLimiter.checkAllowed("user" + i + "@test.com", "10.0.0.1");
+    }
+
+    assertThatThrownBy(() ->
+        loginAttemptLimiter.checkAllowed("fresh@test.com", "10.0.0.1")
+      )
+      .isInstanceOf(TooManyRequestsException.class);
+    // The rejected attempt is not counted against the account.
+    for (int i = 0; i < 3; i++) {
+      loginAttemptLimiter.checkAllowed("fresh@test.com", "10.0.0.2");
+    }
+  }
+
+  @Test
+  @DisplayName("Should take Retry-After from the window that tripped")
+  void checkAllowed_ShouldRetryAfterTheTrippedWindow() {
+    LoginAttemptLimiter limiter = new LoginAttemptLimiter(1, 1, 60000, meterRegistry);
+    limiter.checkAllowed("user@test.com", "10.0.0.1");
+
+    assertThatThrownBy(() -> limiter.checkAllowed("other@test.com", "10.0.0.1"))
+      .isInstanceOfSatisfying(
+        TooManyRequestsException.class,
+        e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 60L)
+      );
+    assertThatThrownBy(() -> limiter.checkAllowed("user@test.com", "10.0.0.2"))
+      .isInstanceOfSatisfying(
+        TooManyRequestsException.class,
+        e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 60L)
+      );
+  }
+
+  @Test
+  @DisplayName("Should let a single failure through when attempts race")
+  void checkAllowed_ShouldBeAtomicUnderContention() throws Exception {
+    LoginAttemptLimiter limiter = new LoginAttemptLimiter(1, 100, 60000, meterRegistry);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger allowed = new AtomicInteger();
+    List<Future<?>> attempts = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      attempts.add(executor.submit(() -> {
+        start.await();
+        try {
+          limiter.checkAllowed("user@test.com", "10.0.0.1");
+          allowed.incrementAndGet();
+        } catch (TooManyRequestsException e) {
+          // throttled
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> attempt : attempts) {
+      attempt.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertThat(allowed.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should clear account failures and give back the IP attempt after a successful login")
+  void recordSuccess_ShouldResetAccount() {
+    LoginAttemptLimiter limiter = new LoginAttemptLimiter(3, 1, 60000, meterRegistry);
+    for (int i = 0; i < 2; i++) {
+      limiter.checkAllowed("user@test.com", "10.0.0." + i);
+    }
+    long attemptedAt = limiter.checkAllowed("user@test.com", "10.0.0.9");
+    limiter.recordSuccess("user@test.com", "10.0.0.9", attemptedAt);
+
+    assertThatCode(() -> limiter.checkAllowed("user@test.com", "10.0.0.9"))
+      .doesNotThrowAnyException();
+  }
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for SessionTicketStore")
+class SessionTicketStoreUnitTest {
+
+  private SessionTicketStore sessionTicketStore;
+
+  private UserDetailsImpl userDetails;
+
+  @BeforeEach
+  void setUp() {
+    sessionTicketStore = new SessionTicketStore(100, 60000, new SimpleMeterRegistry());
+    userDetails =
+      UserDetailsImpl
+        .builder()
+        .id(1L)
+        .username("user@test.com")
+        .firstName("Jane")
+        .admin(true)
+        .password("encodedPassword")
+        .build();
+  }
+
+  @Test
+  @DisplayName("Should resolve an issued ticket to its principal, without password")
+  void issue_ShouldResolveToPrincipal() {
+    String ticket = sessionTicketStore.issue(userDetails);
+    UserDetailsImpl resolved = sessionTicketStore.resolve(ticket);
+
+    assertThat(ticket).hasSize(43).isNotEqualTo(sessionTicketStore.issue(userDetails));
+    assertThat(resolved).isEqualTo(userDetails);
+    assertThat(resolved.getUsername()).isEqualTo("user@test.com");
+    assertThat(resolved.getAdmin()).isTrue();
+    assertThat(resolved.getPassword()).isNull();
+    assertThat(sessionTicketStore.resolve("unknown")).isNull();
+    assertThat(sessionTicketStore.resolve(null)).isNull();
+  }
+
+  @Test
+  @DisplayName("Should drop revoked tickets, one at a time or per user, and redeem each once")
+  void revoke_ShouldDropTickets() {
+    String first = sessionTicketStore.issue(userDetails);
+    String second = sessionTicketStore.issue(userDetails);
+
+    assertThat(sessionTicketStore.revoke(first)).isEqualTo(userDetails);
+
+    assertThat(sessionTicketStore.revoke(first)).isNull();
+    assertThat(sessionTicketStore.revoke(null)).isNull();
+    assertThat(sessionTicketStore.resolve(first)).isNull();
+    assertThat(sessionTicketStore.resolve(second)).isNotNull();
+
+    sessionTicketStore.revokeUser(1L);
+
+    assertThat(sessionTicketStore.resolve(second)).isNull();
+  }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for SlidingWindowRateLimiter")
+class SlidingWindowRateLimiterUnitTest {
+
+  @Test
+  @DisplayName("Should release a key once its oldest event leaves the window")
+  void isOverLimit_ShouldSlideWithTime() {
+    SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, 1000);
+
+    limiter.record("key", 1000);
+    assertThat(limiter.isOverLimit("key", 1100)).isFalse();
+    limiter.record("key", 1500);
+
+    assertThat(limiter.isOverLimit("key", 1600)).isTrue();
+    assertThat(limiter.isOverLimit("key", 2000)).isFalse();
+    assertThat(limiter.isOverLimit("other", 1600)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should only record an event under the limit and report the wait otherwise")
+  void tryAcquire_ShouldCheckAndRecordTogether() {
+    SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, 1000);
+
+    assertThat(limiter.tryAcquire("key", 1000)).isZero();
+    assertThat(limiter.tryAcquire("key", 1200)).isZero();
+
+    assertThat(limiter.tryAcquire("key", 1400)).isEqualTo(600);
+    assertThat(limiter.waitMs("key", 1400)).isEqualTo(600);
+    assertThat(limiter.tryAcquire("key", 2000)).isZero();
+    assertThat(limiter.waitMs("key", 2000)).isEqualTo(200);
+  }
+
+  @Test
+  @DisplayName("Should take back a released event and keep the others in order")
+  void release_ShouldFreeTheOldestSlot() {
+    SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, 1000);
+    limiter.record("key", 1000);
+    limiter.record("key", 1100);
+    limiter.record("key", 1200);
+
+    limiter.release("key", 1100);
+
+    assertThat(limiter.isOverLimit("key", 1300)).isFalse();
+    limiter.record("key", 1300);
+    assertThat(limiter.waitMs("key", 1400)).isEqualTo(600);
+    limiter.release("key", 4242);
+    assertThat(limiter.waitMs("key", 1400)).isEqualTo(600);
+  }
+
+  @Test
+  @DisplayName("Should forget a key on reset")
+  void reset_ShouldForgetKey() {
+    SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, 1000);
+    limiter.record("key", 1000);
+
+    limiter.reset("key");
+
+    assertThat(limiter.isOverLimit("key", 1001)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should reject a limit or window below 1")
+  void constructor_ShouldRejectEmptyLimit() {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new SlidingWindowRateLimiter(0, 1000)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new SlidingWindowRateLimiter(1, 0)
+    );
+  }
+
+  @Test
+  @DisplayName("Should drop expired keys once a window has gone by, however few")
+  void record_ShouldPurgeExpiredKeysOncePerWindow() {
+    SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, 1000);
+    for (int i = 0; i < 500; i++) {
+      limiter.record("key" + i, 1000);
+    }
+    assertThat(limiter.size()).isEqualTo(500);
+
+    // Enough fresh keys to reach every stripe.
+    for (int i = 0; i < 5000; i++) {
+      limiter.record("fresh" + i, 2500);
+    }
+
+    assertThat(limiter.size()).isEqualTo(5000);
+    assertThat(limiter.isOverLimit("fresh0", 2600)).isTrue();
+  }
+}
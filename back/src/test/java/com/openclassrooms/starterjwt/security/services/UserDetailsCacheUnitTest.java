@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SECURITY")
+@DisplayName("Unit tests for UserDetailsCache")
+class UserDetailsCacheUnitTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserDetailsCache userDetailsCache;
+
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    userDetailsCache = new UserDetailsCache(100, 60000, meterRegistry);
+    loads = new AtomicInteger();
+  }
+
+  private UserDetailsImpl load(String email) {
+    loads.incrementAndGet();
+    return UserDetailsImpl.builder().id(1L).username(email).build();
+  }
+
+  @Test
+  @DisplayName("Should load once and record hits and misses")
+  void get_ShouldLoadOnceAndRecordStats() {
+    userDetailsCache.get("user@test.com", this::load);
+    userDetailsCache.get("user@test.com", this::load);
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(
+      meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()
+    )
+      .isEqualTo(1);
+    assertThat(
+      meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()
+    )
+      .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should reload after eviction by email or by user id")
+  void evict_ShouldForceReload() {
+    userDetailsCache.get("user@test.com", this::load);
+    userDetailsCache.evict("user@test.com");
+    userDetailsCache.get("user@test.com", this::load);
+    userDetailsCache.evictUser(1L);
+    userDetailsCache.get("user@test.com", this::load);
+
+    assertThat(loads.get()).isEqualTo(3);
+  }
+}
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.platform.suite.api.SuiteDisplayName;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +16,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
@@ -25,6 +27,13 @@ class UserDetailsServiceImplUnitTest {
   @Mock
   private UserRepository userRepository;
 
+  @Spy
+  private UserDetailsCache userDetailsCache = new UserDetailsCache(
+    100,
+    60000,
+    new SimpleMeterRegistry()
+  );
+
   @InjectMocks
   private UserDetailsServiceImpl userDetailsService;
 
@@ -112,4 +121,42 @@ class UserDetailsServiceImplUnitTest {
 
     verify(userRepository).findByEmail(email);
   }
+
+  @Test
+  @DisplayName("Should serve repeated lookups from the cache until evicted")
+  void testLoadUserByUsername_CachedUntilEvicted() {
+    String email = "cached@test.com";
+    mockUser.setId(5L);
+    mockUser.setEmail(email);
+    when(userRepository.findByEmail(email)).thenReturn(Optional.of(mockUser));
+
+    UserDetails first = userDetailsService.loadUserByUsername(email);
+    UserDetails second = userDetailsService.loadUserByUsername(email);
+
+    assertThat(second).isSameAs(first);
+    verify(userRepository, times(1)).findByEmail(email);
+
+    userDetailsCache.evictUser(5L);
+    userDetailsService.loadUserByUsername(email);
+
+    verify(userRepository, times(2)).findByEmail(email);
+  }
+
+  @Test
+  @DisplayName("Should store the rehashed password and evict the cached entry")
+  void testUpdatePassword_ShouldSaveAndEvict() {
+    String email = "rehash@test.com";
+    mockUser.setId(7L);
+    mockUser.setEmail(email);
+    mockUser.setPassword("oldHash");
+    when(userRepository.findByEmail(email)).thenReturn(Optional.of(mockUser));
+    UserDetails cached = userDetailsService.loadUserByUsername(email);
+
+    UserDetails updated = userDetailsService.updatePassword(cached, "newHash");
+
+    assertThat(updated.getPassword()).isEqualTo("newHash");
+    assertThat(mockUser.getPassword()).isEqualTo("newHash");
+    verify(userRepository).save(mockUser);
+    verify(userDetailsCache).evict(email);
+  }
 }
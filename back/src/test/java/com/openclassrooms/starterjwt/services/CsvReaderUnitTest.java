@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@SuiteDisplayName("SERVICE")
+@DisplayName("Unit tests for CsvReader and CsvWriter")
+class CsvReaderUnitTest {
+
+  @Test
+  @DisplayName("Should read back what the writer quoted")
+  void readRow_ShouldRoundTripQuotedFields() throws IOException {
+    List<String> fields = Arrays.asList(
+      "plain",
+      "with, comma",
+      "with \"quotes\"",
+      "two\nlines",
+      null
+    );
+    StringWriter out = new StringWriter();
+    new CsvWriter(out).writeRow(fields);
+    new CsvWriter(out).writeRow(Arrays.asList("next", "row"));
+
+    CsvReader reader = new CsvReader(new StringReader(out.toString()));
+
+    assertThat(reader.readRow()).isEqualTo(fields);
+    assertThat(reader.getLine()).isEqualTo(1);
+    assertThat(reader.readRow()).containsExactly("next", "row");
+    assertThat(reader.getLine()).isEqualTo(3);
+    assertThat(reader.readRow()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should accept plain line feeds and a missing final line break")
+  void readRow_ShouldAcceptLfAndNoFinalBreak() throws IOException {
+    CsvReader reader = new CsvReader(new StringReader("a,,c\nd"));
+
+    assertThat(reader.readRow()).containsExactly("a", null, "c");
+    assertThat(reader.readRow()).containsExactly("d");
+    assertThat(reader.readRow()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should reject a quoted field that is never closed")
+  void readRow_ShouldRejectUnterminatedQuote() {
+    CsvReader reader = new CsvReader(new StringReader("\"open,field\n"));
+
+    assertThrows(IOException.class, reader::readRow);
+  }
+}
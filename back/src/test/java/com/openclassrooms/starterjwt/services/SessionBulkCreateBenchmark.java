@@ -0,0 +1,140 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+/**
+ * Throughput of creating a two-year weekly series, 104 sessions per
+ * operation, against the H2 test profile served over loopback TCP so that
+ * every statement pays a round trip, as with a database server. "identity"
+ * maps Session ids back to IDENTITY through an orm.xml override, which makes
+ * Hibernate insert each session on its own; "pooled" is the mapping of the
+ * entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SessionBulkCreateBenchmark {
+
+  private static final int OCCURRENCES = 104;
+
+  @Param({ "identity", "pooled" })
+  public String idGeneration;
+
+  private Server server;
+
+  private ConfigurableApplicationContext context;
+
+  private SessionSeriesService sessionSeriesService;
+
+  private SessionRepository sessionRepository;
+
+  @Setup
+  public void setUp() throws SQLException {
+    server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+
+    // Arguments rather than default properties, which the test profile overrides.
+    List<String> args = new ArrayList<>();
+    args.add("--server.port=0");
+    args.add(
+      "--spring.datasource.url=jdbc:h2:tcp://localhost:" +
+      server.getPort() +
+      "/mem:bench;LOCK_TIMEOUT=10000"
+    );
+    args.add("--spring.jpa.show-sql=false");
+    args.add("--spring.jpa.properties.hibernate.generate_statistics=false");
+    args.add("--oc.app.seriesMaxOccurrences=" + OCCURRENCES);
+    if ("identity".equals(idGeneration)) {
+      args.add("--spring.jpa.mapping-resources=benchmark/identity-ids.xml");
+    }
+
+    context =
+      new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+        .profiles("test")
+        .initializers(applicationContext ->
+          applicationContext
+            .getBeanFactory()
+            .registerSingleton(
+              "testConfigurationExcludeFilter",
+              new TestConfigurationExcludeFilter()
+            )
+        )
+        .run(args.toArray(new String[0]));
+
+    sessionSeriesService = context.getBean(SessionSeriesService.class);
+    sessionRepository = context.getBean(SessionRepository.class);
+  }
+
+  /** Keeps the table small so that every iteration inserts into the same index sizes. */
+  @TearDown(Level.Iteration)
+  public void clear() {
+    sessionRepository.deleteAllInBatch();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    server.stop();
+  }
+
+  /** Keeps the test-only security configuration out of the scanned beans. */
+  static class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+
+    @Override
+    public boolean match(
+      MetadataReader metadataReader,
+      MetadataReaderFactory metadataReaderFactory
+    ) {
+      return metadataReader
+        .getAnnotationMetadata()
+        .hasAnnotation(TestConfiguration.class.getName());
+    }
+  }
+
+  @Benchmark
+  public SessionSeries createSeries() {
+    LocalDate firstDay = LocalDate.of(2030, 1, 7);
+    return sessionSeriesService.create(
+      new SessionSeries()
+        .setName("Monday flow")
+        .setDescription("Every Monday evening.")
+        .setCapacity(12)
+        .setFirstDate(
+          Date.from(firstDay.atTime(18, 30).atZone(ZoneId.systemDefault()).toInstant())
+        )
+        .setUntil(firstDay.plusWeeks(OCCURRENCES - 1))
+        .setIntervalWeeks(1)
+    );
+  }
+}
@@ -0,0 +1,252 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+@SuiteDisplayName("SERVICE")
+@DisplayName("Unit tests for SessionSeriesService")
+class SessionSeriesServiceUnitTest {
+
+  private static final LocalDateTime FIRST = LocalDateTime.of(2030, 1, 7, 18, 30);
+
+  @Mock
+  private SessionSeriesRepository sessionSeriesRepository;
+
+  @Mock
+  private SessionRepository sessionRepository;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private SessionSeriesService sessionSeriesService;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    sessionSeriesService =
+      new SessionSeriesService(
+        sessionSeriesRepository,
+        sessionRepository,
+        eventPublisher,
+        5
+      );
+  }
+
+  private static Teacher teacher() {
+    Teacher teacher = new Teacher();
+    teacher.setId(2L);
+    return teacher;
+  }
+
+  private static SessionSeries weekly(LocalDate until, int intervalWeeks) {
+    return new SessionSeries()
+      .setName("Monday flow")
+      .setDescription("Every Monday evening.")
+      .setTeacher(teacher())
+      .setFirstDate(Date.from(FIRST.atZone(ZoneId.systemDefault()).toInstant()))
+      .setUntil(until)
+      .setIntervalWeeks(intervalWeeks);
+  }
+
+  private static List<LocalDateTime> toLocal(List<Date> dates) {
+    return dates
+      .stream()
+      .map(date -> LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()))
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  @DisplayName("Should repeat the first date every interval, skipping exceptions")
+  void occurrences_ShouldFollowTheRule() {
+    SessionSeries series = weekly(LocalDate.of(2030, 2, 4), 1)
+      .setExceptions(Set.of(LocalDate.of(2030, 1, 21)));
+
+    assertThat(toLocal(SessionSeriesService.occurrences(series, 100)))
+      .containsExactly(
+        FIRST,
+        FIRST.plusWeeks(1),
+        FIRST.plusWeeks(3),
+        FIRST.plusWeeks(4)
+      );
+    assertThat(
+      toLocal(SessionSeriesService.occurrences(series.setIntervalWeeks(2), 100))
+    )
+      .containsExactly(FIRST, FIRST.plusWeeks(4));
+  }
+
+  @Test
+  @DisplayName("Should save the series and all its occurrences in one call")
+  void create_ShouldSaveOccurrences() {
+    SessionSeries series = weekly(LocalDate.of(2030, 1, 28), 1).setCapacity(8);
+    when(sessionSeriesRepository.save(series)).thenReturn(series.setId(3L));
+
+    assertThat(sessionSeriesService.create(series)).isSameAs(series);
+
+    ArgumentCaptor<List<Session>> sessions = ArgumentCaptor.forClass(List.class);
+    verify(sessionRepository).saveAll(sessions.capture());
+    assertThat(sessions.getValue())
+      .hasSize(4)
+      .allMatch(session ->
+        session.getSeriesId() == 3L &&
+        session.getCapacity() == 8 &&
+        "Monday flow".equals(session.getName())
+      );
+  }
+
+  @Test
+  @DisplayName("Should reject a series beyond the occurrence limit")
+  void create_ShouldRejectTooManyOccurrences() {
+    SessionSeries series = weekly(LocalDate.of(2030, 12, 31), 1);
+
+    assertThatThrownBy(() -> sessionSeriesService.create(series))
+      .isInstanceOf(BadRequestException.class);
+
+    verify(sessionSeriesRepository, never()).save(any());
+    verify(sessionRepository, never()).saveAll(anyList());
+  }
+
+  @Test
+  @DisplayName("Should reject a series without a teacher")
+  void createAndUpdate_ShouldRequireTeacher() {
+    when(sessionSeriesRepository.findById(3L))
+      .thenReturn(Optional.of(weekly(LocalDate.of(2030, 1, 28), 1)));
+
+    assertThatThrownBy(() ->
+        sessionSeriesService.create(
+          weekly(LocalDate.of(2030, 1, 28), 1).setTeacher(null)
+        )
+      )
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("teacher");
+    assertThatThrownBy(() ->
+        sessionSeriesService.update(3L, new SessionSeries().setName("Monday yin"))
+      )
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("teacher");
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  @DisplayName("Should offer the seats of occurrences given a higher capacity to their waitlists")
+  void update_ShouldReleaseSeatsOfRaisedOccurrences() {
+    when(sessionSeriesRepository.findById(3L))
+      .thenReturn(Optional.of(weekly(LocalDate.of(2030, 1, 28), 1).setCapacity(8)));
+    when(
+      sessionRepository.lockOccurrencesBelowCapacityFrom(eq(3L), any(), eq(Integer.MAX_VALUE))
+    )
+      .thenReturn(List.of(10, 11L));
+
+    sessionSeriesService.update(
+      3L,
+      new SessionSeries().setName("Monday flow").setTeacher(teacher())
+    );
+
+    ArgumentCaptor<SeatReleasedEvent> events = ArgumentCaptor.forClass(SeatReleasedEvent.class);
+    verify(eventPublisher, times(2)).publishEvent(events.capture());
+    assertThat(events.getAllValues())
+      .extracting(SeatReleasedEvent::getSessionId)
+      .containsExactly(10L, 11L);
+  }
+
+  @Test
+  @DisplayName("Should update the upcoming occurrences with one statement")
+  void update_ShouldCopySharedFieldsToUpcomingOccurrences() {
+    SessionSeries stored = weekly(LocalDate.of(2030, 1, 28), 1).setId(3L);
+    SessionSeries changes = new SessionSeries()
+      .setName("Monday yin")
+      .setDescription("Slower.")
+      .setTeacher(teacher())
+      .setCapacity(12);
+    when(sessionSeriesRepository.findById(3L)).thenReturn(Optional.of(stored));
+
+    SessionSeries updated = sessionSeriesService.update(3L, changes);
+
+    assertThat(updated.getName()).isEqualTo("Monday yin");
+    assertThat(updated.getFirstDate()).isEqualTo(stored.getFirstDate());
+    verify(sessionRepository)
+      .updateOccurrencesFrom(
+        eq(3L),
+        any(Date.class),
+        eq("Monday yin"),
+        eq("Slower."),
+        eq(2L),
+        eq(12)
+      );
+  }
+
+  @Test
+  @DisplayName("Should refuse a capacity below the bookings already taken")
+  void update_ShouldRejectCapacityBelowBookings() {
+    when(sessionSeriesRepository.findById(3L))
+      .thenReturn(Optional.of(weekly(LocalDate.of(2030, 1, 28), 1)));
+    when(sessionRepository.countOverbookedOccurrencesFrom(eq(3L), any()))
+      .thenReturn(1);
+
+    assertThatThrownBy(() ->
+        sessionSeriesService.update(
+          3L,
+          new SessionSeries()
+            .setName("Monday flow")
+            .setTeacher(teacher())
+            .setCapacity(1)
+        )
+      )
+      .isInstanceOf(BadRequestException.class);
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  @DisplayName("Should answer not found for an unknown series")
+  void updateAndDelete_ShouldHandleUnknownSeries() {
+    when(sessionSeriesRepository.findById(9L)).thenReturn(Optional.empty());
+    when(sessionSeriesRepository.existsById(9L)).thenReturn(false);
+
+    assertThatThrownBy(() ->
+        sessionSeriesService.update(9L, new SessionSeries())
+      )
+      .isInstanceOf(NotFoundException.class);
+    assertThat(sessionSeriesService.delete(9L)).isFalse();
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  @DisplayName("Should cancel upcoming occurrences and keep past ones")
+  void delete_ShouldUseBulkStatements() {
+    when(sessionSeriesRepository.existsById(3L)).thenReturn(true);
+
+    assertThat(sessionSeriesService.delete(3L)).isTrue();
+
+    verify(sessionRepository).deleteOccurrenceParticipationsFrom(eq(3L), any());
+    verify(sessionRepository).deleteOccurrencesFrom(eq(3L), any());
+    verify(sessionRepository).detachOccurrences(3L);
+    verify(sessionSeriesRepository).deleteById(3L);
+  }
+}
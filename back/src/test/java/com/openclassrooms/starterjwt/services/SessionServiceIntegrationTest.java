@@ -0,0 +1,179 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Not transactional on purpose: every booking runs in its own transaction,
+ * the way concurrent requests do. Runs on H2's PageStore engine: with the
+ * default MVStore, H2 1.4.200 can restore a stale seats_taken when a booking
+ * that waited on the session row rolls back, which MySQL does not.
+ */
+@SpringBootTest(
+  properties = "spring.datasource.url=jdbc:h2:mem:bookingdb;MV_STORE=FALSE;LOCK_TIMEOUT=10000"
+)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SuiteDisplayName("SERVICE")
+@DisplayName("¤Integration tests for SessionService")
+class SessionServiceIntegrationTest {
+
+  private static final int CAPACITY = 10;
+  private static final int BOOKERS = 60;
+  private static final int THREADS = 16;
+
+  @Autowired
+  private SessionService sessionService;
+
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private Long sessionId;
+
+  private final List<Long> userIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    Session session = new Session()
+      .setName("Popular class")
+      .setDescription("Opens with more bookers than seats.")
+      .setDate(new Date())
+      .setCapacity(CAPACITY);
+    sessionId = sessionRepository.save(session).getId();
+
+    for (int i = 0; i < BOOKERS; i++) {
+      User user = new User()
+        .setEmail("booker" + i + "@studio.com")
+        .setFirstName("Booker")
+        .setLastName("N" + i)
+        .setPassword("password")
+        .setAdmin(false);
+      userIds.add(userRepository.save(user).getId());
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("DELETE FROM WAITLIST WHERE session_id = ?", sessionId);
+    jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", sessionId);
+    sessionRepository.deleteById(sessionId);
+    userRepository.deleteAllById(userIds);
+  }
+
+  @Test
+  @DisplayName("Should never overbook when every booker rushes in at once")
+  void participate_ShouldNeverOverbook() throws Exception {
+    AtomicInteger booked = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+
+    runConcurrently(userId -> {
+      try {
+        sessionService.participate(sessionId, userId);
+        booked.incrementAndGet();
+      } catch (BadRequestException e) {
+        rejected.incrementAndGet();
+      }
+    });
+
+    assertThat(booked.get()).isEqualTo(CAPACITY);
+    assertThat(rejected.get()).isEqualTo(BOOKERS - CAPACITY);
+    assertSeatsMatchParticipants(CAPACITY);
+  }
+
+  @Test
+  @DisplayName("Should keep the seat count exact while bookings and cancellations interleave")
+  void participateAndCancel_ShouldKeepSeatsConsistent() throws Exception {
+    runConcurrently(userId -> {
+      for (int round = 0; round < 5; round++) {
+        try {
+          sessionService.participate(sessionId, userId);
+          if (userId % 2 == 0) {
+            sessionService.noLongerParticipate(sessionId, userId);
+          }
+        } catch (BadRequestException e) {
+          // Full session, or already booked from an earlier round.
+        }
+      }
+    });
+
+    Integer participants = jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?",
+      Integer.class,
+      sessionId
+    );
+    assertThat(participants).isLessThanOrEqualTo(CAPACITY);
+    assertSeatsMatchParticipants(participants);
+  }
+
+  private void assertSeatsMatchParticipants(int expected) {
+    Integer participants = jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?",
+      Integer.class,
+      sessionId
+    );
+    Integer seatsTaken = jdbcTemplate.queryForObject(
+      "SELECT seats_taken FROM SESSIONS WHERE id = ?",
+      Integer.class,
+      sessionId
+    );
+    assertThat(participants).isEqualTo(expected);
+    assertThat(seatsTaken).isEqualTo(expected);
+  }
+
+  private void runConcurrently(UserTask task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Long userId : userIds) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            task.run(userId);
+            return null;
+          })
+        );
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private interface UserTask {
+    void run(Long userId);
+  }
+}
@@ -2,25 +2,41 @@ package com.openclassrooms.starterjwt.services;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.*;
 
+import com.openclassrooms.starterjwt.dto.ParticipationResult;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionParticipantId;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.services.SessionService.Participation;
 import org.junit.platform.suite.api.SuiteDisplayName;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 @SuiteDisplayName("SERVICE")
 @DisplayName("Unit tests for SessionService")
@@ -32,6 +48,18 @@ class SessionServiceUnitTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private WaitlistRepository waitlistRepository;
+
+  @Mock
+  private TeacherRepository teacherRepository;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private EntityManager entityManager;
+
   @InjectMocks
   private SessionService sessionService;
 
@@ -48,19 +76,14 @@ class SessionServiceUnitTest {
     return session;
   }
 
-  private static User createUser(Long id) {
-    User user = new User();
-    user.setId(id);
-    return user;
-  }
-
   @ParameterizedTest(name = "({index}) : {0}")
   @CsvSource(
     {
-      "Regular case: session and user exist, 1, 10, true, true, false",
-      "Fail : Session does not exist, 2, 20, false, true, true",
-      "Fail : User does not exist, 3, 30, true, false, true",
-      "Fail : User already participating, 4, 40, true, true, true",
+      "Regular case: session and user exist, 1, 10, 1, 1, true, true, ",
+      "Fail : Session does not exist, 2, 20, 0, 0, false, true, NotFound",
+      "Fail : User does not exist, 3, 30, 1, 0, true, false, NotFound",
+      "Fail : User already participating, 4, 40, 1, 0, true, true, BadRequest",
+      "Fail : Session is full, 5, 50, 0, 0, true, true, BadRequest",
     }
   )
   @DisplayName("Should handle different participate scenario ")
@@ -68,56 +91,43 @@ class SessionServiceUnitTest {
     String scenarioName,
     Long sessionId,
     Long userId,
+    int reservedSeats,
+    int insertedRows,
     boolean sessionExists,
     boolean userExists,
-    boolean expectException
+    String expectedException
   ) {
-    Session session = sessionExists
-      ? createSession(sessionId, List.of())
-      : null;
-    User user = userExists ? createUser(userId) : null;
-
-    if (sessionExists) {
-      when(sessionRepository.findById(sessionId))
-        .thenReturn(Optional.of(session));
-    } else {
-      when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
-    }
-
-    if (userExists) {
-      when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-    } else {
-      when(userRepository.findById(userId)).thenReturn(Optional.empty());
-    }
+    when(sessionRepository.reserveSeat(sessionId)).thenReturn(reservedSeats);
+    when(sessionRepository.insertParticipation(sessionId, userId))
+      .thenReturn(insertedRows);
+    when(sessionRepository.existsById(sessionId)).thenReturn(sessionExists);
+    when(userRepository.existsById(userId)).thenReturn(userExists);
 
-    if (!expectException) {
+    if (expectedException == null) {
       sessionService.participate(sessionId, userId);
-      assertThat(session.getUsers()).contains(user);
-      verify(sessionRepository, times(1)).save(session);
+      verify(sessionRepository, never()).existsById(any());
+    } else if (expectedException.equals("NotFound")) {
+      assertThatThrownBy(() -> sessionService.participate(sessionId, userId))
+        .isInstanceOf(NotFoundException.class)
+        .hasMessageContaining(
+          "Not found: the data you are looking for is unavailable."
+        );
     } else {
-      if (!sessionExists) {
-        assertThatThrownBy(() -> sessionService.participate(sessionId, userId))
-          .isInstanceOf(NotFoundException.class)
-          .hasMessageContaining(
-            "Not found: the data you are looking for is unavailable."
-          );
-      } else if (!userExists) {
-        assertThatThrownBy(() -> sessionService.participate(sessionId, userId))
-          .isInstanceOf(NotFoundException.class)
-          .hasMessageContaining(
-            "Not found: the data you are looking for is unavailable."
-          );
-      }
-      verify(sessionRepository, never()).save(any(Session.class));
+      assertThatThrownBy(() -> sessionService.participate(sessionId, userId))
+        .isInstanceOf(BadRequestException.class);
     }
+    verify(sessionRepository, times(reservedSeats))
+      .insertParticipation(sessionId, userId);
+    verify(sessionRepository, never()).findById(any());
+    verify(sessionRepository, never()).save(any(Session.class));
   }
 
-  @ParameterizedTest(name = "({index}) : {0} [{5}]")
+  @ParameterizedTest(name = "({index}) : {0} [{6}]")
   @CsvSource(
     {
-      "Regular case: User participates, 1, 10, true, true, false",
-      "Fail : User does not participate, 1, 10, true, false, true",
-      "Fail : Session does not exist, 2, 20, false, false, true",
+      "Regular case: User participates, 1, 10, 1, 1, true, false",
+      "Fail : User does not participate, 1, 10, 1, 0, true, true",
+      "Fail : Session does not exist, 2, 20, 0, 0, false, true",
     }
   )
   @DisplayName("Should handle different noLongerParticipate scenario ")
@@ -125,56 +135,360 @@ class SessionServiceUnitTest {
     String scenarioName,
     Long sessionId,
     Long userId,
+    int releasedSeats,
+    int deletedRows,
     boolean sessionExists,
-    boolean userParticipates,
     boolean expectException
   ) {
-    Session session = sessionExists
-      ? createSession(
-        sessionId,
-        userParticipates ? List.of(createUser(userId)) : List.of()
-      )
-      : null;
+    when(sessionRepository.releaseSeat(sessionId)).thenReturn(releasedSeats);
+    when(sessionRepository.deleteParticipation(sessionId, userId))
+      .thenReturn(deletedRows);
 
-    if (sessionExists) {
-      when(sessionRepository.findById(sessionId))
-        .thenReturn(Optional.of(session));
+    if (!expectException) {
+      sessionService.noLongerParticipate(sessionId, userId);
+      verify(eventPublisher, times(1))
+        .publishEvent(any(SeatReleasedEvent.class));
+    } else if (!sessionExists) {
+      assertThatThrownBy(() ->
+          sessionService.noLongerParticipate(sessionId, userId)
+        )
+        .isInstanceOf(NotFoundException.class);
     } else {
-      when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+      assertThatThrownBy(() ->
+          sessionService.noLongerParticipate(sessionId, userId)
+        )
+        .isInstanceOf(BadRequestException.class);
     }
+    verify(sessionRepository, times(releasedSeats))
+      .deleteParticipation(sessionId, userId);
+    verify(sessionRepository, never()).findById(any());
+    verify(sessionRepository, never()).save(any(Session.class));
+  }
 
-    if (!expectException) {
-      sessionService.noLongerParticipate(sessionId, userId);
-      assertThat(session.getUsers()).doesNotContain(createUser(userId));
-      verify(sessionRepository, times(1)).save(session);
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    {
+      "Regular case: joins the waitlist, 0, 1, WAITLISTED",
+      "Fail : already participating, 1, 0, BadRequest",
+      "Fail : already waiting, 0, 0, BadRequest",
+    }
+  )
+  @DisplayName("Should handle waitlist scenarios when the session is full")
+  void participate_ShouldHandleWaitlistScenarios(
+    String scenarioName,
+    int participations,
+    int enqueuedRows,
+    String expectedOutcome
+  ) {
+    when(sessionRepository.reserveSeat(1L)).thenReturn(0);
+    when(sessionRepository.existsById(1L)).thenReturn(true);
+    when(userRepository.existsById(10L)).thenReturn(true);
+    when(sessionRepository.countParticipation(1L, 10L))
+      .thenReturn(participations);
+    when(waitlistRepository.enqueue(1L, 10L)).thenReturn(enqueuedRows);
+
+    if (expectedOutcome.equals("WAITLISTED")) {
+      assertThat(sessionService.participate(1L, 10L, true))
+        .isEqualTo(Participation.WAITLISTED);
+      verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
     } else {
-      if (!sessionExists) {
-        assertThatThrownBy(() ->
-            sessionService.noLongerParticipate(sessionId, userId)
-          )
-          .isInstanceOf(NotFoundException.class);
-      } else {
-        assertThatThrownBy(() ->
-            sessionService.noLongerParticipate(sessionId, userId)
-          )
-          .isInstanceOf(BadRequestException.class);
-      }
-      verify(sessionRepository, never()).save(any(Session.class));
+      assertThatThrownBy(() -> sessionService.participate(1L, 10L, true))
+        .isInstanceOf(BadRequestException.class);
+    }
+    verify(sessionRepository, never()).insertParticipation(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should only leave the waitlist when the user is waiting")
+  void noLongerParticipate_ShouldLeaveWaitlist() {
+    when(waitlistRepository.dequeue(1L, 10L)).thenReturn(1);
+
+    sessionService.noLongerParticipate(1L, 10L);
+
+    verify(sessionRepository, never()).releaseSeat(any());
+    verify(sessionRepository, never()).deleteParticipation(any(), any());
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource({ "Session deleted, 1, true", "Session not found, 0, false" })
+  @DisplayName("Should delete a session with two statements")
+  void delete_ShouldUseDeletedRowCount(
+    String scenarioName,
+    int deletedRows,
+    boolean expected
+  ) {
+    when(sessionRepository.deleteSessionById(1L)).thenReturn(deletedRows);
+
+    assertThat(sessionService.delete(1L)).isEqualTo(expected);
+
+    verify(sessionRepository).deleteParticipationsBySessionId(1L);
+    verify(sessionRepository, never()).findById(any());
+    verify(sessionRepository, never()).deleteById(any());
+  }
+
+  @Test
+  @DisplayName("Should report one outcome per session and user in bulk")
+  void participateInBulk_ShouldReportEachOutcome() {
+    User user10 = new User();
+    user10.setId(10L);
+    User user11 = new User();
+    user11.setId(11L);
+    User user13 = new User();
+    user13.setId(13L);
+    when(userRepository.findAllById(any()))
+      .thenReturn(List.of(user10, user11, user13));
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(1);
+    when(sessionRepository.lockFreeSeats(2L)).thenReturn(null);
+    when(sessionRepository.findParticipatingUserIds(eq(1L), any()))
+      .thenReturn(Set.of(11L));
+
+    Map<Long, Map<Long, ParticipationResult>> result =
+      sessionService.participateInBulk(
+        List.of(2L, 1L),
+        List.of(10L, 11L, 12L, 13L, 10L)
+      );
+
+    assertThat(result.keySet()).containsExactly(1L, 2L);
+    assertThat(result.get(1L))
+      .containsExactly(
+        entry(10L, ParticipationResult.BOOKED),
+        entry(11L, ParticipationResult.ALREADY_PARTICIPATING),
+        entry(12L, ParticipationResult.USER_NOT_FOUND),
+        entry(13L, ParticipationResult.SESSION_FULL)
+      );
+    assertThat(result.get(2L).values())
+      .containsOnly(ParticipationResult.SESSION_NOT_FOUND);
+    verify(userRepository, times(1)).findAllById(any());
+    verify(sessionRepository).insertParticipations(1L, List.of(10L));
+    verify(sessionRepository, never()).insertParticipations(eq(2L), any());
+  }
+
+  @Test
+  @DisplayName("Should only apply the fields present in a patch")
+  void patch_ShouldApplyPresentFieldsOnly() {
+    Session session = createSession(1L, null);
+    session.setName("Old name");
+    session.setDescription("Kept description");
+    when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+    SessionPatchDto patch = new SessionPatchDto();
+    patch.setName("New name");
+
+    Session result = sessionService.patch(1L, patch);
+
+    assertThat(result.getName()).isEqualTo("New name");
+    assertThat(result.getDescription()).isEqualTo("Kept description");
+    verify(sessionRepository, never()).lockFreeSeats(any());
+    verify(sessionRepository, never()).replaceParticipants(any(), any());
+    verify(sessionRepository, never()).save(any(Session.class));
+  }
+
+  @Test
+  @DisplayName("Should replace the participants when users are patched")
+  void patch_ShouldReplaceParticipants() {
+    Session session = createSession(1L, null);
+    session.setCapacity(2);
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(1);
+    when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+    when(userRepository.findAllById(any()))
+      .thenReturn(List.of(new User(), new User()));
+    when(sessionRepository.replaceParticipants(eq(1L), any())).thenReturn(1);
+    SessionPatchDto patch = new SessionPatchDto();
+    patch.setUsers(List.of(10L, 11L));
+
+    Session result = sessionService.patch(1L, patch);
+
+    assertThat(result.getSeatsTaken()).isEqualTo(2);
+    verify(sessionRepository).replaceParticipants(1L, Set.of(10L, 11L));
+    verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    {
+      "Capacity raised, 3, true",
+      "Capacity removed, , true",
+      "Capacity unchanged, 2, false",
+      "Capacity lowered to the participants, 1, false",
+    }
+  )
+  @DisplayName("Should offer the seats opened by a capacity patch to the waitlist")
+  void patch_ShouldReleaseSeatsOnRaisedCapacity(
+    String scenarioName,
+    Integer capacity,
+    boolean released
+  ) {
+    Session session = createSession(1L, null);
+    session.setCapacity(2);
+    session.setSeatsTaken(1);
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(1);
+    when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+    SessionPatchDto patch = new SessionPatchDto();
+    patch.setCapacity(capacity);
+
+    Session result = sessionService.patch(1L, patch);
+
+    assertThat(result.getCapacity()).isEqualTo(capacity);
+    verify(sessionRepository, never()).replaceParticipants(any(), any());
+    verify(eventPublisher, times(released ? 1 : 0))
+      .publishEvent(any(SeatReleasedEvent.class));
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    {
+      "Fail : null name, name, BadRequest",
+      "Fail : capacity below participants, capacity, BadRequest",
+      "Fail : users over capacity, users, BadRequest",
+    }
+  )
+  @DisplayName("Should reject invalid patches")
+  void patch_ShouldRejectInvalidPatches(
+    String scenarioName,
+    String field,
+    String expectedException
+  ) {
+    Session session = createSession(1L, null);
+    session.setCapacity(1);
+    session.setSeatsTaken(1);
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(0);
+    when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+    SessionPatchDto patch = new SessionPatchDto();
+    if (field.equals("name")) {
+      patch.setName(null);
+    } else if (field.equals("capacity")) {
+      patch.setCapacity(0);
+      session.setSeatsTaken(3);
+    } else {
+      patch.setUsers(List.of(10L, 11L));
     }
+
+    assertThatThrownBy(() -> sessionService.patch(1L, patch))
+      .isInstanceOf(BadRequestException.class);
+    verify(sessionRepository, never()).replaceParticipants(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should report a patch of an unknown session")
+  void patch_ShouldRejectUnknownSession() {
+    when(sessionRepository.findById(999L)).thenReturn(Optional.empty());
+    SessionPatchDto patch = new SessionPatchDto();
+    patch.setName("New name");
+
+    assertThatThrownBy(() -> sessionService.patch(999L, patch))
+      .isInstanceOf(NotFoundException.class);
   }
 
   @Test
-  @DisplayName("Should return all sessions when findAll is called")
-  void findAll_ShouldReturnAllSessions() {
+  @DisplayName("Should reject more participants than the capacity")
+  void update_ShouldRejectParticipantsOverCapacity() {
+    Session session = createSession(1L, List.of(new User(), new User()));
+    session.setCapacity(1);
+
+    assertThatThrownBy(() -> sessionService.update(1L, session))
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("capacity");
+    verify(sessionRepository, never()).save(any(Session.class));
+  }
+
+  @Test
+  @DisplayName("Should hand the sessions over one keyset page at a time")
+  void forEachSessionBatch_ShouldReadKeysetPages() {
+    List<Session> firstPage = new ArrayList<>();
+    for (long id = 1; id <= SessionRepository.SCAN_PAGE_SIZE; id++) {
+      firstPage.add(createSession(id, null));
+    }
+    List<Session> lastPage = List.of(createSession(200L, null));
+    when(sessionRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+      .thenReturn(firstPage);
+    when(
+      sessionRepository.findByIdGreaterThanOrderByIdAsc(
+        eq((long) SessionRepository.SCAN_PAGE_SIZE),
+        any()
+      )
+    )
+      .thenReturn(lastPage);
+    when(sessionRepository.findParticipantIds(anyList())).thenReturn(List.of());
+
+    List<Integer> batchSizes = new ArrayList<>();
+    sessionService.forEachSessionBatch((batch, participantIds) ->
+      batchSizes.add(batch.size())
+    );
+
+    assertThat(batchSizes)
+      .containsExactly(SessionRepository.SCAN_PAGE_SIZE, 1);
+    verify(sessionRepository, times(2))
+      .findByIdGreaterThanOrderByIdAsc(any(), any());
+    verify(sessionRepository, times(2)).findParticipantIds(anyList());
+    verify(entityManager, times(2)).clear();
+  }
+
+  @Test
+  @DisplayName("Should search from the start of the first day to the end of the last")
+  void search_ShouldIncludeBothDays() {
+    ZoneId zone = ZoneId.systemDefault();
+    SessionCursor cursor = new SessionCursor(new Date(1000), 9L);
+
+    sessionService.search(
+      LocalDate.of(2030, 3, 1),
+      LocalDate.of(2030, 3, 31),
+      2L,
+      "flow",
+      cursor,
+      21
+    );
+
+    verify(sessionRepository)
+      .search(
+        Date.from(LocalDate.of(2030, 3, 1).atStartOfDay(zone).toInstant()),
+        Date.from(LocalDate.of(2030, 4, 1).atStartOfDay(zone).toInstant()),
+        2L,
+        "flow",
+        new Date(1000),
+        9L,
+        21
+      );
+  }
+
+  @Test
+  @DisplayName("Should group participant ids by session")
+  void findParticipantIds_ShouldGroupBySession() {
     List<Session> sessions = List.of(
       createSession(1L, null),
-      createSession(2L, null)
+      createSession(2L, null),
+      createSession(3L, null)
     );
-    when(sessionRepository.findAll()).thenReturn(sessions);
+    when(sessionRepository.findParticipantIds(List.of(1L, 2L, 3L)))
+      .thenReturn(
+        List.of(
+          participant(1L, 10L),
+          participant(1L, 11L),
+          participant(2L, 10L)
+        )
+      );
+
+    Map<Long, List<Long>> result = sessionService.findParticipantIds(sessions);
+
+    assertThat(result)
+      .containsOnly(
+        entry(1L, List.of(10L, 11L)),
+        entry(2L, List.of(10L))
+      );
+    assertThat(sessionService.findParticipantIds(List.of())).isEmpty();
+  }
 
-    List<Session> result = sessionService.findAll();
+  private static SessionParticipantId participant(Long sessionId, Long userId) {
+    return new SessionParticipantId() {
+      @Override
+      public Long getSessionId() {
+        return sessionId;
+      }
 
-    assertThat(result).isNotNull().hasSize(2).containsAll(sessions);
+      @Override
+      public Long getUserId() {
+        return userId;
+      }
+    };
   }
 
   @Test
@@ -210,6 +524,8 @@ class SessionServiceUnitTest {
     updatedSession.setId(sessionId);
     updatedSession.setName("Updated Session");
 
+    when(sessionRepository.lockFreeSeats(sessionId))
+      .thenReturn(Integer.MAX_VALUE);
     when(sessionRepository.findById(sessionId))
       .thenReturn(Optional.of(existingSession));
     when(sessionRepository.save(updatedSession)).thenReturn(updatedSession);
@@ -220,6 +536,52 @@ class SessionServiceUnitTest {
     assertThat(result.getId()).isEqualTo(sessionId);
     assertThat(result.getName()).isEqualTo("Updated Session");
 
-    verify(sessionRepository, times(1)).save(updatedSession);
+    InOrder inOrder = inOrder(sessionRepository);
+    inOrder.verify(sessionRepository).lockFreeSeats(sessionId);
+    inOrder.verify(sessionRepository).save(updatedSession);
+    inOrder.verify(sessionRepository).recountSeats(sessionId);
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  @DisplayName("Should report an update of an unknown session")
+  void update_ShouldRejectUnknownSession() {
+    when(sessionRepository.lockFreeSeats(999L)).thenReturn(null);
+
+    assertThatThrownBy(() -> sessionService.update(999L, new Session()))
+      .isInstanceOf(NotFoundException.class);
+    verify(sessionRepository, never()).save(any(Session.class));
+  }
+
+  @ParameterizedTest(name = "({index}) : {0}")
+  @CsvSource(
+    {
+      "Participant removed, 0, 2, 1, true",
+      "Capacity raised, 0, 3, 2, true",
+      "Capacity removed, 0, , 2, true",
+      "Seats unchanged, 1, 3, 2, false",
+      "Capacity lowered, 2, 2, 2, false",
+    }
+  )
+  @DisplayName("Should offer the seats opened by an update to the waitlist")
+  void update_ShouldReleaseOpenedSeats(
+    String scenarioName,
+    int freeSeatsBefore,
+    Integer capacity,
+    int seatsTaken,
+    boolean released
+  ) {
+    Session updatedSession = createSession(1L, null);
+    updatedSession.setCapacity(capacity);
+    updatedSession.setSeatsTaken(seatsTaken);
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(freeSeatsBefore);
+    when(sessionRepository.save(updatedSession)).thenReturn(updatedSession);
+    when(sessionRepository.findWithUsersById(1L))
+      .thenReturn(Optional.of(updatedSession));
+
+    sessionService.update(1L, updatedSession);
+
+    verify(eventPublisher, times(released ? 1 : 0))
+      .publishEvent(any(SeatReleasedEvent.class));
   }
 }
@@ -1,22 +1,38 @@
 package com.openclassrooms.starterjwt.services;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenVersionRegistry;
+import com.openclassrooms.starterjwt.security.services.SessionTicketStore;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 class UserServiceUnitTest {
 
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private TokenVersionRegistry tokenVersionRegistry;
+
+  @Mock
+  private SessionTicketStore sessionTicketStore;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
   @InjectMocks
   private UserService userService;
 
@@ -32,14 +48,43 @@ class UserServiceUnitTest {
   }
 
   @Test
-  @DisplayName("Should delete a user by ID")
+  @DisplayName("Should delete a user and its participations by ID")
   void delete_ShouldDeleteUserById() {
     
     Long userId = 1L;
+    when(userRepository.findParticipatedSessionIds(userId))
+      .thenReturn(List.of(3, 4L));
+    when(userRepository.deleteByIdAndEmail(userId, "test@example.com"))
+      .thenReturn(1);
+
+    assertThat(userService.delete(userId, "test@example.com")).isTrue();
+
+    InOrder inOrder = inOrder(userRepository, eventPublisher);
+    inOrder.verify(userRepository).findParticipatedSessionIds(userId);
+    inOrder.verify(userRepository).releaseSeatsOf(userId, "test@example.com");
+    inOrder.verify(userRepository).deleteParticipationsOf(userId, "test@example.com");
+    inOrder.verify(userRepository).deleteByIdAndEmail(userId, "test@example.com");
+    ArgumentCaptor<SeatReleasedEvent> events = ArgumentCaptor.forClass(SeatReleasedEvent.class);
+    inOrder.verify(eventPublisher, times(2)).publishEvent(events.capture());
+    assertThat(events.getAllValues())
+      .extracting(SeatReleasedEvent::getSessionId)
+      .containsExactly(3L, 4L);
+    verify(userRepository, never()).findById(any());
+    verify(tokenVersionRegistry, times(1)).invalidate(userId);
+    verify(sessionTicketStore, times(1)).revokeUser(userId);
+  }
+
+  @Test
+  @DisplayName("Should keep tokens and caches when no row was deleted")
+  void delete_ShouldReturnFalse_WhenNothingDeleted() {
+    
+    Long userId = 1L;
+    when(userRepository.deleteByIdAndEmail(userId, "other@example.com"))
+      .thenReturn(0);
 
-    userService.delete(userId);
+    assertThat(userService.delete(userId, "other@example.com")).isFalse();
 
-    verify(userRepository, times(1)).deleteById(userId);
+    verifyNoInteractions(tokenVersionRegistry, sessionTicketStore, eventPublisher);
   }
 
   @Test
@@ -0,0 +1,166 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.services.SessionService.Participation;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Not transactional on purpose: promotions run on the promoter's own thread
+ * once the cancelling transaction has committed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SuiteDisplayName("SERVICE")
+@DisplayName("¤Integration tests for WaitlistPromoter")
+class WaitlistPromoterIntegrationTest {
+
+  private static final int CAPACITY = 10;
+  private static final int WAITERS = 3;
+
+  @Autowired
+  private SessionService sessionService;
+
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private WaitlistRepository waitlistRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private Long sessionId;
+
+  private final List<Long> userIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    Session session = new Session()
+      .setName("Popular class")
+      .setDescription("Opens with more bookers than seats.")
+      .setDate(new Date())
+      .setCapacity(CAPACITY);
+    sessionId = sessionRepository.save(session).getId();
+
+    for (int i = 0; i < CAPACITY + WAITERS; i++) {
+      User user = new User()
+        .setEmail("booker" + i + "@studio.com")
+        .setFirstName("Booker")
+        .setLastName("N" + i)
+        .setPassword("password")
+        .setAdmin(false);
+      userIds.add(userRepository.save(user).getId());
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("DELETE FROM WAITLIST WHERE session_id = ?", sessionId);
+    jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", sessionId);
+    sessionRepository.deleteById(sessionId);
+    userRepository.deleteAllById(userIds);
+  }
+
+  @Test
+  @DisplayName("Should hand released seats to the oldest waiters in the background")
+  void noLongerParticipate_ShouldPromoteWaiters() throws Exception {
+    for (int i = 0; i < CAPACITY; i++) {
+      sessionService.participate(sessionId, userIds.get(i));
+    }
+    for (int i = CAPACITY; i < CAPACITY + WAITERS; i++) {
+      assertThat(sessionService.participate(sessionId, userIds.get(i), true))
+        .isEqualTo(Participation.WAITLISTED);
+    }
+
+    sessionService.noLongerParticipate(sessionId, userIds.get(0));
+    sessionService.noLongerParticipate(sessionId, userIds.get(1));
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (waiting() > 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(waiting()).isEqualTo(1);
+    assertThat(
+      jdbcTemplate.queryForList(
+        "SELECT user_id FROM PARTICIPATE WHERE session_id = ?",
+        Long.class,
+        sessionId
+      )
+    )
+      .contains(userIds.get(CAPACITY), userIds.get(CAPACITY + 1))
+      .doesNotContain(userIds.get(CAPACITY + 2));
+    assertThat(
+      jdbcTemplate.queryForObject(
+        "SELECT seats_taken FROM SESSIONS WHERE id = ?",
+        Integer.class,
+        sessionId
+      )
+    )
+      .isEqualTo(CAPACITY);
+  }
+
+  @Test
+  @DisplayName("Should drop the waiters of a deleted session or user")
+  void delete_ShouldCascadeToWaitlist() {
+    Long otherSessionId = sessionRepository
+      .save(
+        new Session()
+          .setName("Cancelled class")
+          .setDescription("Deleted with its waitlist.")
+          .setDate(new Date())
+      )
+      .getId();
+    int leaving = CAPACITY + WAITERS - 1;
+    Long leavingUserId = userIds.remove(leaving);
+    waitlistRepository.enqueue(sessionId, leavingUserId);
+    waitlistRepository.enqueue(sessionId, userIds.get(0));
+    waitlistRepository.enqueue(otherSessionId, userIds.get(0));
+
+    assertThat(sessionService.delete(otherSessionId)).isTrue();
+    assertThat(userService.delete(leavingUserId, "booker" + leaving + "@studio.com"))
+      .isTrue();
+
+    assertThat(
+      jdbcTemplate.queryForList(
+        "SELECT user_id FROM WAITLIST WHERE session_id IN (?, ?)",
+        Long.class,
+        sessionId,
+        otherSessionId
+      )
+    )
+      .containsExactly(userIds.get(0));
+  }
+
+  private int waiting() {
+    return jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM WAITLIST WHERE session_id = ?",
+      Integer.class,
+      sessionId
+    );
+  }
+}
@@ -0,0 +1,152 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.suite.api.SuiteDisplayName;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SuiteDisplayName("SERVICE")
+@DisplayName("Unit tests for WaitlistPromoter")
+class WaitlistPromoterUnitTest {
+
+  @Mock
+  private SessionRepository sessionRepository;
+
+  @Mock
+  private WaitlistRepository waitlistRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private WaitlistPromoter waitlistPromoter;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    waitlistPromoter =
+      new WaitlistPromoter(
+        sessionRepository,
+        waitlistRepository,
+        transactionManager,
+        meterRegistry,
+        3,
+        60000
+      );
+  }
+
+  @AfterEach
+  void tearDown() {
+    waitlistPromoter.shutdown();
+  }
+
+  private static WaitlistEntry waiter(Long id, Long userId) {
+    return new WaitlistEntry().setId(id).setSessionId(1L).setUserId(userId);
+  }
+
+  @Test
+  @DisplayName("Should book the oldest waiters until the seats run out")
+  void promote_ShouldFillFreeSeatsInOrder() {
+    when(waitlistRepository.findBySessionIdOrderByIdAsc(eq(1L), any(Pageable.class)))
+      .thenReturn(List.of(waiter(7L, 10L), waiter(8L, 11L), waiter(9L, 12L)));
+    when(sessionRepository.reserveSeat(1L)).thenReturn(1, 1, 0);
+    when(waitlistRepository.dequeueById(any())).thenReturn(1);
+    when(sessionRepository.insertParticipation(eq(1L), any())).thenReturn(1);
+
+    waitlistPromoter.promote(1L);
+
+    verify(sessionRepository).insertParticipation(1L, 10L);
+    verify(sessionRepository).insertParticipation(1L, 11L);
+    verify(sessionRepository, never()).insertParticipation(1L, 12L);
+    verify(waitlistRepository).dequeueById(7L);
+    verify(waitlistRepository).dequeueById(8L);
+    verify(waitlistRepository, never()).dequeueById(9L);
+    assertThat(meterRegistry.get("session.waitlist.promoted").counter().count())
+      .isEqualTo(2);
+    assertThat(meterRegistry.get("session.waitlist.promotion.lag").timer().count())
+      .isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should count the waitlist once per TTL however often it is scraped")
+  void depth_ShouldBeCachedBetweenScrapes() {
+    when(waitlistRepository.count()).thenReturn(4L, 5L);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(meterRegistry.get("session.waitlist.depth").gauge().value())
+        .isEqualTo(4);
+    }
+
+    verify(waitlistRepository, times(1)).count();
+  }
+
+  @Test
+  @DisplayName("Should give the seat back when a waiter cannot be booked")
+  void promote_ShouldSkipWaitersAlreadyBooked() {
+    when(waitlistRepository.findBySessionIdOrderByIdAsc(eq(1L), any(Pageable.class)))
+      .thenReturn(List.of(waiter(7L, 10L)));
+    when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+    when(waitlistRepository.dequeueById(7L)).thenReturn(1);
+    when(sessionRepository.insertParticipation(1L, 10L)).thenReturn(0);
+
+    waitlistPromoter.promote(1L);
+
+    verify(sessionRepository).releaseSeat(1L);
+    verify(waitlistRepository).dequeueById(7L);
+    assertThat(meterRegistry.get("session.waitlist.promoted").counter().count())
+      .isZero();
+  }
+
+  @Test
+  @DisplayName("Should not book a waiter who left the waitlist during the batch")
+  void promote_ShouldSkipWaitersWhoLeft() {
+    when(waitlistRepository.findBySessionIdOrderByIdAsc(eq(1L), any(Pageable.class)))
+      .thenReturn(List.of(waiter(7L, 10L), waiter(8L, 11L)));
+    when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+    when(waitlistRepository.dequeueById(7L)).thenReturn(0);
+    when(waitlistRepository.dequeueById(8L)).thenReturn(1);
+    when(sessionRepository.insertParticipation(eq(1L), any())).thenReturn(1);
+
+    waitlistPromoter.promote(1L);
+
+    verify(sessionRepository, never()).insertParticipation(1L, 10L);
+    verify(sessionRepository).insertParticipation(1L, 11L);
+    verify(sessionRepository, times(1)).releaseSeat(1L);
+    assertThat(meterRegistry.get("session.waitlist.promoted").counter().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should read the next batch when a whole batch was served")
+  void promote_ShouldContinueAfterFullBatch() {
+    when(waitlistRepository.findBySessionIdOrderByIdAsc(eq(1L), any(Pageable.class)))
+      .thenReturn(List.of(waiter(1L, 10L), waiter(2L, 11L), waiter(3L, 12L)))
+      .thenReturn(List.of(waiter(4L, 13L)));
+    when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+    when(waitlistRepository.dequeueById(any())).thenReturn(1);
+    when(sessionRepository.insertParticipation(eq(1L), any())).thenReturn(1);
+
+    waitlistPromoter.promote(1L);
+
+    verify(waitlistRepository, times(2))
+      .findBySessionIdOrderByIdAsc(eq(1L), any(Pageable.class));
+    assertThat(meterRegistry.get("session.waitlist.promoted").counter().count())
+      .isEqualTo(4);
+  }
+}
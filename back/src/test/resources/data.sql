@@ -1,6 +1,12 @@
+CREATE TABLE
+  IF NOT EXISTS `ID_SEQUENCES` (
+    `sequence_name` VARCHAR(255) PRIMARY KEY,
+    `next_val` BIGINT NOT NULL
+  );
+
 CREATE TABLE
   IF NOT EXISTS `TEACHERS` (
-    `id` INT PRIMARY KEY AUTO_INCREMENT,
+    `id` INT PRIMARY KEY,
     `last_name` VARCHAR(40),
     `first_name` VARCHAR(40),
     `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -8,42 +14,82 @@ CREATE TABLE
   );
 
 CREATE TABLE
-  IF NOT EXISTS `SESSIONS` (
+  IF NOT EXISTS `SESSION_SERIES` (
     `id` INT PRIMARY KEY AUTO_INCREMENT,
     `name` VARCHAR(50),
     `description` VARCHAR(2000),
-    `date` DATETIME,
     `teacher_id` INT,
+    `capacity` INT,
+    `first_date` DATETIME NOT NULL,
+    `until_date` DATE NOT NULL,
+    `interval_weeks` INT NOT NULL DEFAULT 1,
     `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`)
   );
 
+CREATE TABLE
+  IF NOT EXISTS `SESSION_SERIES_EXCEPTION` (
+    `series_id` INT NOT NULL,
+    `exception_date` DATE NOT NULL,
+    PRIMARY KEY (`series_id`, `exception_date`),
+    FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`) ON DELETE CASCADE
+  );
+
+CREATE TABLE
+  IF NOT EXISTS `SESSIONS` (
+    `id` INT PRIMARY KEY,
+    `name` VARCHAR(50),
+    `description` VARCHAR(2000),
+    `date` DATETIME,
+    `teacher_id` INT,
+    `capacity` INT,
+    `seats_taken` INT NOT NULL DEFAULT 0,
+    `series_id` INT,
+    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`),
+    FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`)
+  );
+
 CREATE TABLE
   IF NOT EXISTS `USERS` (
-    `id` INT PRIMARY KEY AUTO_INCREMENT,
+    `id` INT PRIMARY KEY,
     `last_name` VARCHAR(40),
     `first_name` VARCHAR(40),
     `admin` BOOLEAN DEFAULT false,
     `email` VARCHAR(255),
     `password` VARCHAR(255),
+    `token_version` INT NOT NULL DEFAULT 0,
     `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
   );
 
 CREATE TABLE
   IF NOT EXISTS `PARTICIPATE` (
-    `user_id` INT,
-    `session_id` INT,
+    `user_id` INT NOT NULL,
+    `session_id` INT NOT NULL,
+    PRIMARY KEY (`session_id`, `user_id`),
     FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`),
     FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`)
   );
 
+CREATE TABLE
+  IF NOT EXISTS `WAITLIST` (
+    `id` INT PRIMARY KEY AUTO_INCREMENT,
+    `session_id` INT NOT NULL,
+    `user_id` INT NOT NULL,
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (`session_id`, `user_id`),
+    FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE,
+    FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE
+  );
+
 INSERT INTO
-  TEACHERS (first_name, last_name)
+  TEACHERS (id, first_name, last_name)
 VALUES
-  ('Margot', 'DELAHAYE'),
-  ('Hélène', 'THIERCELIN');
+  (1, 'Margot', 'DELAHAYE'),
+  (2, 'Hélène', 'THIERCELIN');
 
 INSERT INTO
   USERS (id, first_name, last_name, admin, email, password)
@@ -67,4 +113,11 @@ VALUES
     false,
     'test@test.com',
     '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq'
-  );
\ No newline at end of file
+  );
+
+INSERT INTO
+  ID_SEQUENCES (sequence_name, next_val)
+VALUES
+  ('SESSIONS', 1),
+  ('TEACHERS', 3),
+  ('USERS', 3);
@@ -85,7 +85,32 @@ describe('AuthService', () => {
       req.flush(mockSessionInformation);
     });
   });
+
+  describe('refresh', () => {
+    //@integrat-test
+    it('🔄should send a POST request with the refresh token', () => {
+      const mockSessionInformation: SessionInformation = {
+        id: 1,
+        username: 'testuser',
+        token: 'newToken',
+        refreshToken: 'newRefreshToken',
+        type: 'user',
+        firstName: 'Test',
+        lastName: 'User',
+        admin: false,
+      };
+
+      service.refresh('refreshToken').subscribe((response) => {
+        expect(response).toEqual(mockSessionInformation);
+      });
+
+      const req = httpMock.expectOne('api/auth/refresh');
+      expect(req.request.method).toBe('POST');
+      expect(req.request.body).toEqual({ refreshToken: 'refreshToken' });
+      req.flush(mockSessionInformation);
+    });
+  });
 });
 
-// UT : 1/3 = 33%
-// IT : 2/3 = 67%
+// UT : 1/4 = 25%
+// IT : 3/4 = 75%
@@ -1,20 +1,43 @@
 import { expect } from '@jest/globals';
 import { TestBed } from '@angular/core/testing';
 import { HttpClientTestingModule } from '@angular/common/http/testing';
-import { HttpRequest, HttpHandler, HttpResponse } from '@angular/common/http';
+import { HttpRequest, HttpHandler, HttpResponse, HttpErrorResponse } from '@angular/common/http';
 import { JwtInterceptor } from './jwt.interceptor';
 import { SessionService } from '../services/session.service';
-import { of } from 'rxjs';
+import { AuthService } from '../features/auth/services/auth.service';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
+import { of, throwError } from 'rxjs';
 
 describe('JwtInterceptor', () => {
   let interceptor: JwtInterceptor;
   let sessionService: Partial<SessionService>;
+  let authService: Partial<AuthService>;
   let httpHandler: HttpHandler;
 
+  const loggedSession: SessionInformation = {
+    token: 'expired-jwt-token',
+    refreshToken: 'refresh-token',
+    type: 'user',
+    id: 1,
+    username: 'TestMOCK',
+    firstName: 'Test',
+    lastName: 'MOCK',
+    admin: false,
+  };
+
+  const unauthorized = new HttpErrorResponse({ status: 401 });
+
   beforeEach(() => {
     sessionService = {
       isLogged: false,
       sessionInformation: undefined,
+      logIn: jest.fn((session: SessionInformation) => {
+        sessionService.sessionInformation = session;
+      }),
+      logOut: jest.fn(),
+    };
+    authService = {
+      refresh: jest.fn(),
     };
 
     TestBed.configureTestingModule({
@@ -22,6 +45,7 @@ describe('JwtInterceptor', () => {
       providers: [
         JwtInterceptor,
         { provide: SessionService, useValue: sessionService },
+        { provide: AuthService, useValue: authService },
       ],
     });
 
@@ -85,4 +109,54 @@ describe('JwtInterceptor', () => {
 
     expect(httpHandler.handle).toHaveBeenCalledWith(request);
   });
+  //@unit-test
+  it('1️⃣should refresh the token on a 401 and retry the request once', () => {
+    const request = new HttpRequest('GET', '/api/test');
+    sessionService.isLogged = true;
+    sessionService.sessionInformation = { ...loggedSession };
+    const refreshed = { ...loggedSession, token: 'new-jwt-token', refreshToken: 'new-refresh-token' };
+    (authService.refresh as jest.Mock).mockReturnValue(of(refreshed));
+    (httpHandler.handle as jest.Mock)
+      .mockReturnValueOnce(throwError(() => unauthorized))
+      .mockReturnValueOnce(of(new HttpResponse({ status: 200 })));
+
+    let result: any;
+    interceptor.intercept(request, httpHandler).subscribe((event) => (result = event));
+
+    expect(authService.refresh).toHaveBeenCalledWith('refresh-token');
+    expect(sessionService.logIn).toHaveBeenCalledWith(refreshed);
+    const retried = (httpHandler.handle as jest.Mock).mock.calls[1][0];
+    expect(retried.headers.get('Authorization')).toBe('Bearer new-jwt-token');
+    expect(result.status).toBe(200);
+  });
+  //@unit-test
+  it('1️⃣should log out and rethrow the 401 when the refresh fails', () => {
+    const request = new HttpRequest('GET', '/api/test');
+    sessionService.isLogged = true;
+    sessionService.sessionInformation = { ...loggedSession };
+    (authService.refresh as jest.Mock).mockReturnValue(
+      throwError(() => new HttpErrorResponse({ status: 401 }))
+    );
+    (httpHandler.handle as jest.Mock).mockReturnValue(throwError(() => unauthorized));
+
+    let error: any;
+    interceptor.intercept(request, httpHandler).subscribe({ error: (e) => (error = e) });
+
+    expect(sessionService.logOut).toHaveBeenCalled();
+    expect(error).toBe(unauthorized);
+    expect(httpHandler.handle).toHaveBeenCalledTimes(1);
+  });
+  //@unit-test
+  it('1️⃣should not refresh on a 401 from the auth endpoints', () => {
+    const request = new HttpRequest('POST', 'api/auth/refresh', {});
+    sessionService.isLogged = true;
+    sessionService.sessionInformation = { ...loggedSession };
+    (httpHandler.handle as jest.Mock).mockReturnValue(throwError(() => unauthorized));
+
+    let error: any;
+    interceptor.intercept(request, httpHandler).subscribe({ error: (e) => (error = e) });
+
+    expect(authService.refresh).not.toHaveBeenCalled();
+    expect(error).toBe(unauthorized);
+  });
 });
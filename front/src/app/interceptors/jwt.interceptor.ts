@@ -1,19 +1,59 @@
-import { HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
-import { Injectable } from "@angular/core";
+import { HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
+import { Injectable, Injector } from "@angular/core";
+import { Observable, catchError, finalize, shareReplay, switchMap, tap, throwError } from 'rxjs';
+import { AuthService } from '../features/auth/services/auth.service';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
 import { SessionService } from '../services/session.service';
 
 @Injectable({ providedIn: 'root' })
 export class JwtInterceptor implements HttpInterceptor {
-  constructor(private sessionService: SessionService) {}
+  // Requests failing together wait for the same refresh: the server only
+  // accepts each refresh token once.
+  private refreshing: Observable<SessionInformation> | null = null;
 
-  public intercept(request: HttpRequest<any>, next: HttpHandler) {
-    if (this.sessionService.isLogged) {
-      request = request.clone({
-        setHeaders: {
-          Authorization: `Bearer ${this.sessionService.sessionInformation!.token}`,
-        },
-      });
+  constructor(private sessionService: SessionService,
+              private injector: Injector) {}
+
+  public intercept(request: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
+    if (!this.sessionService.isLogged) {
+      return next.handle(request);
+    }
+    return next.handle(this.withToken(request)).pipe(
+      catchError(error => {
+        const refreshToken = this.sessionService.sessionInformation?.refreshToken;
+        if (!(error instanceof HttpErrorResponse) || error.status !== 401
+            || !refreshToken || request.url.includes('api/auth/')) {
+          return throwError(() => error);
+        }
+        return this.refresh(refreshToken).pipe(
+          catchError(() => {
+            this.sessionService.logOut();
+            return throwError(() => error);
+          }),
+          switchMap(() => next.handle(this.withToken(request)))
+        );
+      })
+    );
+  }
+
+  private withToken(request: HttpRequest<any>): HttpRequest<any> {
+    return request.clone({
+      setHeaders: {
+        Authorization: `Bearer ${this.sessionService.sessionInformation!.token}`,
+      },
+    });
+  }
+
+  private refresh(refreshToken: string): Observable<SessionInformation> {
+    if (!this.refreshing) {
+      // AuthService is looked up lazily: it depends on HttpClient, which
+      // depends on this interceptor.
+      this.refreshing = this.injector.get(AuthService).refresh(refreshToken).pipe(
+        tap(session => this.sessionService.logIn(session)),
+        finalize(() => this.refreshing = null),
+        shareReplay(1)
+      );
     }
-    return next.handle(request);
+    return this.refreshing;
   }
 }
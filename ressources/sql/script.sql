@@ -1,46 +1,102 @@
+-- TEACHERS, SESSIONS and USERS take their ids from ID_SEQUENCES only, so
+-- they have no AUTO_INCREMENT: a row inserted by hand must be given an id
+-- below the next_val of its table.
+CREATE TABLE `ID_SEQUENCES` (
+  `sequence_name` VARCHAR(255) PRIMARY KEY,
+  `next_val` BIGINT NOT NULL
+);
+
 CREATE TABLE `TEACHERS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `id` INT PRIMARY KEY,
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
-CREATE TABLE `SESSIONS` (
+CREATE TABLE `SESSION_SERIES` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `name` VARCHAR(50),
   `description` VARCHAR(2000),
+  `teacher_id` int,
+  `capacity` INT,
+  `first_date` TIMESTAMP NOT NULL,
+  `until_date` DATE NOT NULL,
+  `interval_weeks` INT NOT NULL DEFAULT 1,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `SESSION_SERIES_EXCEPTION` (
+  `series_id` INT NOT NULL,
+  `exception_date` DATE NOT NULL,
+  PRIMARY KEY (`series_id`, `exception_date`)
+);
+
+CREATE TABLE `SESSIONS` (
+  `id` INT PRIMARY KEY,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
   `date` TIMESTAMP,
   `teacher_id` int,
+  `capacity` INT,
+  `seats_taken` INT NOT NULL DEFAULT 0,
+  `series_id` INT,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
 CREATE TABLE `USERS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `id` INT PRIMARY KEY,
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `admin` BOOLEAN NOT NULL DEFAULT false,
   `email` VARCHAR(255),
   `password` VARCHAR(255),
+  `token_version` INT NOT NULL DEFAULT 0,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT, 
-  `session_id` INT
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
 );
 
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY `uk_waitlist_session_user` (`session_id`, `user_id`),
+  KEY `idx_waitlist_session_id` (`session_id`, `id`)
+);
+
+CREATE INDEX `idx_sessions_date_id` ON `SESSIONS` (`date`, `id`);
+CREATE INDEX `idx_sessions_series_id_date` ON `SESSIONS` (`series_id`, `date`);
+CREATE INDEX `idx_sessions_teacher_id_date_id` ON `SESSIONS` (`teacher_id`, `date`, `id`);
+CREATE FULLTEXT INDEX `ftx_sessions_name_description` ON `SESSIONS` (`name`, `description`);
+
 ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `SESSION_SERIES_EXCEPTION` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`) ON DELETE CASCADE;
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
 
-INSERT INTO TEACHERS (first_name, last_name)
-VALUES ('Margot', 'DELAHAYE'),
-       ('Hélène', 'THIERCELIN');
+INSERT INTO TEACHERS (id, first_name, last_name)
+VALUES (1, 'Margot', 'DELAHAYE'),
+       (2, 'Hélène', 'THIERCELIN');
 
 
-INSERT INTO USERS (first_name, last_name, admin, email, password)
-VALUES ('Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq'); 
+INSERT INTO USERS (id, first_name, last_name, admin, email, password)
+VALUES (1, 'Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq');
 
+-- Next free id of each table, handed out by Hibernate in blocks (pooled-lo).
+INSERT INTO ID_SEQUENCES (sequence_name, next_val)
+VALUES ('SESSIONS', 1),
+       ('TEACHERS', 3),
+       ('USERS', 2);
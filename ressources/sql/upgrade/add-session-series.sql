@@ -0,0 +1,27 @@
+-- Upgrades a database created before recurring session series existed.
+-- Existing sessions stay one-offs, with a NULL series_id.
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `teacher_id` int,
+  `capacity` INT,
+  `first_date` TIMESTAMP NOT NULL,
+  `until_date` DATE NOT NULL,
+  `interval_weeks` INT NOT NULL DEFAULT 1,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `SESSION_SERIES_EXCEPTION` (
+  `series_id` INT NOT NULL,
+  `exception_date` DATE NOT NULL,
+  PRIMARY KEY (`series_id`, `exception_date`)
+);
+
+ALTER TABLE `SESSIONS` ADD COLUMN `series_id` INT;
+CREATE INDEX `idx_sessions_series_id_date` ON `SESSIONS` (`series_id`, `date`);
+
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `SESSION_SERIES_EXCEPTION` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`) ON DELETE CASCADE;
@@ -0,0 +1,9 @@
+-- Upgrades a database created before sessions had a capacity. Existing
+-- sessions stay unlimited (NULL capacity); seats_taken starts from the
+-- bookings already made, so the next reservation is counted correctly.
+ALTER TABLE `SESSIONS`
+  ADD COLUMN `capacity` INT,
+  ADD COLUMN `seats_taken` INT NOT NULL DEFAULT 0;
+
+UPDATE SESSIONS s
+SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id);
@@ -0,0 +1,3 @@
+-- Upgrades a database created before GET /api/session was paged by
+-- (date, id). The index serves the seek query of every page.
+CREATE INDEX `idx_sessions_date_id` ON `SESSIONS` (`date`, `id`);
@@ -0,0 +1,5 @@
+-- Upgrades a database created before GET /api/session/search existed: the
+-- (teacher_id, date, id) index serves the teacher filter, the FULLTEXT
+-- index the keyword one. Building the FULLTEXT index rewrites SESSIONS.
+CREATE INDEX `idx_sessions_teacher_id_date_id` ON `SESSIONS` (`teacher_id`, `date`, `id`);
+CREATE FULLTEXT INDEX `ftx_sessions_name_description` ON `SESSIONS` (`name`, `description`);
@@ -0,0 +1,3 @@
+-- Upgrades a database created before USERS.token_version existed.
+-- Every user starts at version 0, the version tokens issued so far carry.
+ALTER TABLE `USERS` ADD COLUMN `token_version` INT NOT NULL DEFAULT 0;
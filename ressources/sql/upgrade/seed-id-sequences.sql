@@ -0,0 +1,25 @@
+-- Upgrades a database created before TEACHERS, SESSIONS and USERS took their
+-- ids from ID_SEQUENCES. Run it with the application stopped: each sequence
+-- starts right after the highest id already in its table, and the
+-- AUTO_INCREMENT the tables no longer use is dropped.
+CREATE TABLE IF NOT EXISTS `ID_SEQUENCES` (
+  `sequence_name` VARCHAR(255) PRIMARY KEY,
+  `next_val` BIGINT NOT NULL
+);
+
+INSERT INTO ID_SEQUENCES (sequence_name, next_val)
+SELECT * FROM (
+  SELECT 'SESSIONS' AS seq_name, COALESCE(MAX(id), 0) + 1 AS seq_next FROM SESSIONS
+  UNION ALL
+  SELECT 'TEACHERS', COALESCE(MAX(id), 0) + 1 FROM TEACHERS
+  UNION ALL
+  SELECT 'USERS', COALESCE(MAX(id), 0) + 1 FROM USERS
+) AS seeds
+ON DUPLICATE KEY UPDATE next_val = GREATEST(ID_SEQUENCES.next_val, seeds.seq_next);
+
+-- MySQL refuses to modify a column that foreign keys reference otherwise.
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE `TEACHERS` MODIFY `id` INT NOT NULL;
+ALTER TABLE `SESSIONS` MODIFY `id` INT NOT NULL;
+ALTER TABLE `USERS` MODIFY `id` INT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;